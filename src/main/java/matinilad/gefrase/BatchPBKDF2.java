@@ -0,0 +1,197 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.util.Objects;
+
+/**
+ * PBKDF2-HMAC-SHA256 de várias senhas ao mesmo tempo.<br>
+ * <br>
+ * Quando o programa é executado com {@code --add-modules jdk.incubator.vector}
+ * a implementação usada é a {@link VectorPBKDF2}, que calcula uma senha por lane
+ * dos registradores SIMD da cpu (8 com AVX2, 16 com AVX-512), se não, cada senha
+ * é calculada em sequência pelo {@link PBKDF2}.<br>
+ * <br>
+ * As instâncias não são thread-safe, use {@link #get()} para pegar a instância da thread atual.
+ *
+ * @author Cien
+ */
+public abstract class BatchPBKDF2 {
+
+    //propriedade do sistema para desativar a implementação vetorizada
+    public static final String PROPERTY_DISABLE_VECTOR = "gefrase.disableVector";
+
+    //quantidade mínima de lanes para valer a pena usar a implementação vetorizada
+    private static final int MINIMUM_VECTOR_LANES = 4;
+
+    //se a implementação vetorizada pode ser usada
+    private static final boolean VECTOR_AVAILABLE;
+
+    static {
+        boolean available = false;
+        if (!Boolean.getBoolean(PROPERTY_DISABLE_VECTOR)
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                available = createVector().getLanes() >= MINIMUM_VECTOR_LANES;
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException ex) {
+                available = false;
+            }
+        }
+        VECTOR_AVAILABLE = available;
+    }
+
+    //uma instância por thread
+    private static final ThreadLocal<BatchPBKDF2> LOCAL = ThreadLocal.withInitial(() -> {
+        if (VECTOR_AVAILABLE) {
+            try {
+                return createVector();
+            } catch (ReflectiveOperationException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+        return new Scalar();
+    });
+
+    //cria a implementação vetorizada por reflexão, para que a classe só seja
+    //carregada quando o módulo do vector api estiver presente
+    private static BatchPBKDF2 createVector() throws ReflectiveOperationException {
+        return (BatchPBKDF2) Class.forName("matinilad.gefrase.VectorPBKDF2")
+                .getDeclaredConstructor()
+                .newInstance();
+    }
+
+    /**
+     * Retorna se a implementação vetorizada está sendo usada
+     *
+     * @return se a implementação vetorizada está sendo usada
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    /**
+     * Retorna a instância da thread atual
+     *
+     * @return a instância da thread atual
+     */
+    public static BatchPBKDF2 get() {
+        return LOCAL.get();
+    }
+
+    //a implementação escalar, uma senha por vez
+    private static class Scalar extends BatchPBKDF2 {
+
+        @Override
+        public int getLanes() {
+            return 1;
+        }
+
+        @Override
+        protected void deriveLanes(char[][] passwords, byte[][] salts,
+                int offset, int count, int iterations, byte[][] outputs) {
+            PBKDF2 pbkdf2 = PBKDF2.get();
+            for (int i = offset; i < offset + count; i++) {
+                try {
+                    pbkdf2.setPassword(passwords[i]);
+                    pbkdf2.derive(salts[i], 0, salts[i].length,
+                            iterations,
+                            outputs[i], 0, outputs[i].length);
+                } finally {
+                    pbkdf2.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Construtor usado pelas implementações
+     */
+    protected BatchPBKDF2() {
+
+    }
+
+    /**
+     * Retorna quantas senhas são calculadas ao mesmo tempo
+     *
+     * @return quantas senhas são calculadas ao mesmo tempo
+     */
+    public abstract int getLanes();
+
+    /**
+     * Calcula até {@link #getLanes()} senhas de uma vez, todos os salts do grupo têm o mesmo tamanho
+     *
+     * @param passwords as senhas
+     * @param salts os salts
+     * @param offset a primeira senha
+     * @param count quantas senhas, de 1 até {@link #getLanes()}
+     * @param iterations as iterações
+     * @param outputs as saídas
+     */
+    protected abstract void deriveLanes(char[][] passwords, byte[][] salts,
+            int offset, int count, int iterations, byte[][] outputs);
+
+    /**
+     * Deriva uma chave para cada senha, todas com a mesma quantidade de iterações.<br>
+     * O tamanho de cada chave derivada é o tamanho do array de saída dela, de 1 até 32 bytes.<br>
+     * Os salts podem ter tamanhos diferentes, as senhas são agrupadas em sequências com salts do
+     * mesmo tamanho (o resultado é o mesmo com ou sem a implementação vetorizada).
+     *
+     * @param passwords as senhas
+     * @param salts os salts, um para cada senha
+     * @param iterations as iterações (maior que zero)
+     * @param outputs os arrays de saída, um para cada senha
+     */
+    public void derive(char[][] passwords, byte[][] salts, int iterations, byte[][] outputs) {
+        if (passwords.length != salts.length || passwords.length != outputs.length) {
+            throw new IllegalArgumentException("passwords, salts and outputs must have the same length");
+        }
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be at least 1: " + iterations);
+        }
+        for (byte[] out : outputs) {
+            if (out.length < 1 || out.length > PBKDF2.DIGEST_SIZE) {
+                throw new IllegalArgumentException("output length must be between 1 and " + PBKDF2.DIGEST_SIZE);
+            }
+        }
+        for (byte[] salt : salts) {
+            Objects.requireNonNull(salt, "salt is null");
+        }
+        int lanes = getLanes();
+        int i = 0;
+        while (i < passwords.length) {
+            //um grupo vai até getLanes() senhas ou até o tamanho do salt mudar
+            int saltLength = salts[i].length;
+            int count = 1;
+            while (count < lanes && i + count < passwords.length && salts[i + count].length == saltLength) {
+                count++;
+            }
+            deriveLanes(passwords, salts, i, count, iterations, outputs);
+            i += count;
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.io.PrintStream;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Benchmark do PBKDF2 próprio e do BatchPBKDF2 contra o PBKDF2WithHmacSHA256 do java,
+ * executado pela linha de comando com -benchmark
+ *
+ * @author Cien
+ */
+public class Benchmark {
+
+    //quantidade de senhas comparadas byte a byte
+    public static final int VALIDATION_ROUNDS = 500;
+    //quantidade de derivações medidas
+    public static final int BENCHMARK_ROUNDS = 1000;
+    //tamanho do salt usado (o mesmo do código de verificação)
+    public static final int SALT_SIZE = 19;
+
+    //deriva uma chave com o PBKDF2WithHmacSHA256 do java
+    private static byte[] deriveJCE(char[] password, byte[] salt, int iterations, int length) {
+        try {
+            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            PBEKeySpec pbe = new PBEKeySpec(password, salt, iterations, length * 8);
+            try {
+                return factory.generateSecret(pbe).getEncoded();
+            } finally {
+                pbe.clearPassword();
+            }
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    //deriva uma chave com o PBKDF2 próprio
+    private static byte[] deriveOwn(char[] password, byte[] salt, int iterations, int length) {
+        byte[] out = new byte[length];
+        PBKDF2 pbkdf2 = PBKDF2.get();
+        try {
+            pbkdf2.setPassword(password);
+            pbkdf2.derive(salt, 0, salt.length, iterations, out, 0, length);
+        } finally {
+            pbkdf2.clear();
+        }
+        return out;
+    }
+
+    //gera uma senha aleatória com caracteres ascii, acentuados, de outros planos e surrogates soltos
+    private static char[] randomPassword(SecureRandom random) {
+        int length = 1 + random.nextInt(100);
+        StringBuilder b = new StringBuilder();
+        while (b.length() < length) {
+            switch (random.nextInt(4)) {
+                case 0 -> b.append((char) (0x20 + random.nextInt(0x5F)));
+                case 1 -> b.append((char) (0xA0 + random.nextInt(0x700)));
+                case 2 -> b.appendCodePoint(0x1F600 + random.nextInt(0x40));
+                default -> b.append((char) (0x20 + random.nextInt(0xFFE0)));
+            }
+        }
+        return b.toString().toCharArray();
+    }
+
+    //valida que o PBKDF2 próprio gera os mesmos bytes que o do java
+    private static boolean validate(PrintStream out, SecureRandom random) {
+        for (int i = 0; i < VALIDATION_ROUNDS; i++) {
+            char[] password = randomPassword(random);
+            byte[] salt = new byte[1 + random.nextInt(80)];
+            random.nextBytes(salt);
+            int iterations = 1 + random.nextInt(20);
+            int length = 1 + random.nextInt(70);
+
+            byte[] expected = deriveJCE(password, salt, iterations, length);
+            byte[] result = deriveOwn(password, salt, iterations, length);
+            if (!Arrays.equals(expected, result)) {
+                out.println("MISMATCH: password=" + new String(password)
+                        + " salt=" + HexFormat.of().formatHex(salt)
+                        + " iterations=" + iterations
+                        + " length=" + length);
+                return false;
+            }
+        }
+        out.println("Validation: " + VALIDATION_ROUNDS + " random inputs identical to PBKDF2WithHmacSHA256");
+        return true;
+    }
+
+    //valida que o BatchPBKDF2 gera os mesmos bytes que o do java, em grupos com salts do mesmo tamanho
+    private static boolean validateBatch(PrintStream out, SecureRandom random) {
+        BatchPBKDF2 batch = BatchPBKDF2.get();
+        int validated = 0;
+        while (validated < VALIDATION_ROUNDS) {
+            //um grupo que não é múltiplo da quantidade de lanes, para testar lanes vazias
+            int count = 1 + random.nextInt(batch.getLanes() * 3);
+            int saltLength = 1 + random.nextInt(80);
+            int iterations = 1 + random.nextInt(20);
+            char[][] passwords = new char[count][];
+            byte[][] salts = new byte[count][];
+            byte[][] outputs = new byte[count][];
+            for (int i = 0; i < count; i++) {
+                passwords[i] = randomPassword(random);
+                salts[i] = new byte[saltLength];
+                random.nextBytes(salts[i]);
+                outputs[i] = new byte[1 + random.nextInt(PBKDF2.DIGEST_SIZE)];
+            }
+            batch.derive(passwords, salts, iterations, outputs);
+            for (int i = 0; i < count; i++) {
+                byte[] expected = deriveJCE(passwords[i], salts[i], iterations, outputs[i].length);
+                if (!Arrays.equals(expected, outputs[i])) {
+                    out.println("BATCH MISMATCH: password=" + new String(passwords[i])
+                            + " salt=" + HexFormat.of().formatHex(salts[i])
+                            + " iterations=" + iterations
+                            + " length=" + outputs[i].length);
+                    return false;
+                }
+            }
+            validated += count;
+        }
+        out.println("Batch validation: " + validated + " random inputs identical to PBKDF2WithHmacSHA256");
+        return true;
+    }
+
+    //mede quantas derivações por segundo uma implementação consegue
+    private static double measure(boolean own, char[][] passwords, byte[] salt) {
+        long start = System.nanoTime();
+        for (char[] password : passwords) {
+            if (own) {
+                deriveOwn(password, salt, VerificationWindow.ITERATIONS, VerificationWindow.HASH_SIZE);
+            } else {
+                deriveJCE(password, salt, VerificationWindow.ITERATIONS, PBKDF2.DIGEST_SIZE);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return passwords.length / (elapsed / 1E9);
+    }
+
+    //mede quantos códigos de verificação por segundo o BatchPBKDF2 consegue na thread atual
+    private static double measureBatch(char[][] passwords, byte[][] randomSalts) {
+        long start = System.nanoTime();
+        VerificationWindow.getVerificationCodes(randomSalts, passwords, 0, passwords.length);
+        long elapsed = System.nanoTime() - start;
+        return passwords.length / (elapsed / 1E9);
+    }
+
+    /**
+     * Executa o benchmark e escreve os resultados
+     *
+     * @param out onde os resultados são escritos
+     */
+    public static void run(PrintStream out) {
+        SecureRandom random = Main.createRandom(null);
+        if (!validate(out, random) || !validateBatch(out, random)) {
+            return;
+        }
+
+        char[][] passwords = new char[BENCHMARK_ROUNDS][];
+        for (int i = 0; i < passwords.length; i++) {
+            passwords[i] = ("Abafa.senha.teste.palavra.codigo.lugar.pouco.mundo." + i).toCharArray();
+        }
+        byte[] salt = new byte[SALT_SIZE];
+        random.nextBytes(salt);
+        byte[][] randomSalts = new byte[BENCHMARK_ROUNDS][];
+        for (int i = 0; i < randomSalts.length; i++) {
+            randomSalts[i] = VerificationWindow.getRandomSalt(random);
+        }
+
+        //aquecimento do JIT
+        measure(false, passwords, salt);
+        measure(true, passwords, salt);
+        measureBatch(passwords, randomSalts);
+
+        double jce = measure(false, passwords, salt);
+        double own = measure(true, passwords, salt);
+        double batch = measureBatch(passwords, randomSalts);
+        out.println(String.format("PBKDF2WithHmacSHA256 (%d iterations): %.1f codes/s", VerificationWindow.ITERATIONS, jce));
+        out.println(String.format("PBKDF2 (%d iterations): %.1f codes/s", VerificationWindow.ITERATIONS, own));
+        out.println(String.format("Speedup: %.2fx", own / jce));
+        out.println(String.format("BatchPBKDF2 (%s, %d lanes): %.1f codes/s",
+                (BatchPBKDF2.isVectorAvailable() ? "vector" : "scalar"),
+                BatchPBKDF2.get().getLanes(), batch));
+        out.println(String.format("Batch speedup: %.2fx", batch / jce));
+    }
+
+    private Benchmark() {
+
+    }
+
+}
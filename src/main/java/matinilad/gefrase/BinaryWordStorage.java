@@ -0,0 +1,283 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Armazenamento de palavras em um dicionário binário pré-compilado, normalmente
+ * mapeado direto do arquivo com {@link FileChannel#map}, sem ocupar heap.<br>
+ * <br>
+ * O formato (big endian) é:<br>
+ * magic "GFDB" (4 bytes), versão (int), quantidade de palavras (int),
+ * tamanho da maior palavra em bytes (int), hash SHA-256 do conteúdo (32 bytes),
+ * tabela de offsets (2 * quantidade + 1 ints) e os bytes das palavras.<br>
+ * <br>
+ * Cada palavra é guardada duas vezes em UTF-8, normal e com a primeira letra em maiúsculo,
+ * o offset 2i é o início da palavra i normal, 2i + 1 o da palavra i em maiúsculo
+ * e 2i + 2 o fim dela, relativos ao início dos bytes das palavras.<br>
+ * <br>
+ * O hash do conteúdo é o SHA-256 de todas as palavras normais, cada uma seguida de '\n',
+ * o mesmo hash do arquivo de texto de onde o dicionário foi compilado (sem linhas vazias).
+ *
+ * @author Cien
+ */
+public class BinaryWordStorage implements WordStorage {
+
+    //o magic do formato
+    public static final byte[] MAGIC = {'G', 'F', 'D', 'B'};
+    //a versão do formato
+    public static final int VERSION = 1;
+    //o tamanho do cabeçalho
+    public static final int HEADER_SIZE = MAGIC.length + 4 + 4 + 4 + 32;
+    //a extensão dos arquivos
+    public static final String EXTENSION = ".gfdb";
+
+    /**
+     * Verifica se os primeiros bytes de um arquivo são de um dicionário binário
+     *
+     * @param header os primeiros bytes do arquivo
+     * @param length quantos bytes foram lidos
+     * @return se é um dicionário binário
+     */
+    public static boolean isBinary(byte[] header, int length) {
+        return length >= MAGIC.length
+                && Arrays.equals(header, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    /**
+     * Calcula o hash do conteúdo de um armazenamento de palavras
+     *
+     * @param storage o armazenamento
+     * @return o hash SHA-256 do conteúdo
+     */
+    public static byte[] calculateContentHash(WordStorage storage) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(storage.getMaxWordByteLength() + 1);
+        for (int i = 0; i < storage.getNumberOfWords(); i++) {
+            buffer.clear();
+            storage.writeWord(i, false, buffer);
+            buffer.put((byte) '\n');
+            buffer.flip();
+            sha.update(buffer);
+        }
+        return sha.digest();
+    }
+
+    /**
+     * Escreve um armazenamento de palavras no formato binário
+     *
+     * @param storage o armazenamento
+     * @param out o canal de saída
+     * @throws IOException se acontecer algum erro de escrita
+     */
+    public static void write(WordStorage storage, WritableByteChannel out) throws IOException {
+        int count = storage.getNumberOfWords();
+        ByteBuffer word = ByteBuffer.allocate(storage.getMaxWordByteLength());
+
+        //calcula o tamanho dos bytes das palavras
+        long dataSize = 0;
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < 2; j++) {
+                word.clear();
+                storage.writeWord(i, j == 1, word);
+                dataSize += word.position();
+            }
+        }
+        long fileSize = HEADER_SIZE + ((2L * count + 1) * Integer.BYTES) + dataSize;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Dictionary is too large: " + fileSize + " bytes");
+        }
+
+        ByteBuffer file = ByteBuffer.allocate((int) fileSize);
+        file.put(MAGIC);
+        file.putInt(VERSION);
+        file.putInt(count);
+        file.putInt(storage.getMaxWordByteLength());
+        file.put(calculateContentHash(storage));
+
+        int offsetsStart = file.position();
+        int dataStart = offsetsStart + ((2 * count + 1) * Integer.BYTES);
+        file.position(dataStart);
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < 2; j++) {
+                file.putInt(offsetsStart + (((2 * i) + j) * Integer.BYTES), file.position() - dataStart);
+                storage.writeWord(i, j == 1, file);
+            }
+        }
+        file.putInt(offsetsStart + ((2 * count) * Integer.BYTES), file.position() - dataStart);
+
+        file.flip();
+        while (file.hasRemaining()) {
+            out.write(file);
+        }
+    }
+
+    /**
+     * Abre um dicionário binário mapeando o arquivo na memória
+     *
+     * @param file o arquivo
+     * @return o armazenamento de palavras do arquivo
+     * @throws IOException se o arquivo não puder ser lido ou não for um dicionário binário válido
+     */
+    public static BinaryWordStorage map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinaryWordStorage(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.toString());
+        }
+    }
+
+    /**
+     * Lê um dicionário binário de um stream (como um recurso dentro do jar, que não pode ser mapeado)
+     *
+     * @param in o stream
+     * @param source o nome do arquivo, para as mensagens de erro
+     * @return o armazenamento de palavras do stream
+     * @throws IOException se o stream não puder ser lido ou não for um dicionário binário válido
+     */
+    public static BinaryWordStorage read(InputStream in, String source) throws IOException {
+        return new BinaryWordStorage(ByteBuffer.wrap(in.readAllBytes()), source);
+    }
+
+    //o arquivo inteiro
+    private final ByteBuffer buffer;
+    //a quantidade de palavras
+    private final int count;
+    //o tamanho da maior palavra em bytes
+    private final int maxWordByteLength;
+    //o hash do conteúdo
+    private final byte[] contentHash;
+    //onde começam os offsets e os bytes das palavras
+    private final int offsetsStart;
+    private final int dataStart;
+
+    /**
+     * Cria um armazenamento a partir dos bytes de um dicionário binário, só o cabeçalho
+     * é validado, as palavras não são lidas
+     *
+     * @param buffer os bytes do dicionário binário
+     * @param source o nome do arquivo, para as mensagens de erro
+     * @throws IOException se não for um dicionário binário válido
+     */
+    public BinaryWordStorage(ByteBuffer buffer, String source) throws IOException {
+        this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (this.buffer.capacity() < HEADER_SIZE) {
+            throw new IOException("File '" + source + "' is too small to be a binary dictionary");
+        }
+        byte[] magic = new byte[MAGIC.length];
+        this.buffer.get(0, magic);
+        if (!isBinary(magic, magic.length)) {
+            throw new IOException("File '" + source + "' is not a binary dictionary");
+        }
+        int version = this.buffer.getInt(MAGIC.length);
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary dictionary version " + version + " in file '" + source + "'");
+        }
+        this.count = this.buffer.getInt(MAGIC.length + 4);
+        this.maxWordByteLength = this.buffer.getInt(MAGIC.length + 8);
+        this.contentHash = new byte[32];
+        this.buffer.get(MAGIC.length + 12, this.contentHash);
+        if (this.count <= 0) {
+            throw new IOException("Binary dictionary '" + source + "' is empty");
+        }
+        this.offsetsStart = HEADER_SIZE;
+        long data = HEADER_SIZE + ((2L * this.count + 1) * Integer.BYTES);
+        if (data > this.buffer.capacity()
+                || data + this.buffer.getInt((int) data - Integer.BYTES) != this.buffer.capacity()) {
+            throw new IOException("Binary dictionary '" + source + "' is truncated or corrupted");
+        }
+        this.dataStart = (int) data;
+    }
+
+    /**
+     * Retorna uma cópia do hash SHA-256 do conteúdo guardado no cabeçalho
+     *
+     * @return o hash do conteúdo
+     */
+    public byte[] getContentHash() {
+        return contentHash.clone();
+    }
+
+    /**
+     * Recalcula o hash do conteúdo e compara com o do cabeçalho, lendo todas as palavras
+     *
+     * @return se o conteúdo está íntegro
+     */
+    public boolean verifyContentHash() {
+        return Arrays.equals(calculateContentHash(this), this.contentHash);
+    }
+
+    //retorna o offset absoluto de uma entrada da tabela de offsets
+    private int offset(int entry) {
+        return this.dataStart + this.buffer.getInt(this.offsetsStart + (entry * Integer.BYTES));
+    }
+
+    @Override
+    public int getNumberOfWords() {
+        return this.count;
+    }
+
+    @Override
+    public String getWord(int index) {
+        int start = offset(2 * Objects.checkIndex(index, this.count));
+        int end = offset((2 * index) + 1);
+        byte[] data = new byte[end - start];
+        this.buffer.get(start, data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void writeWord(int index, boolean capitalized, ByteBuffer out) {
+        int entry = (2 * Objects.checkIndex(index, this.count)) + (capitalized ? 1 : 0);
+        int start = offset(entry);
+        int length = offset(entry + 1) - start;
+        out.put(out.position(), this.buffer, start, length);
+        out.position(out.position() + length);
+    }
+
+    @Override
+    public int getMaxWordByteLength() {
+        return maxWordByteLength;
+    }
+
+}
@@ -0,0 +1,337 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Armazenamento de palavras na memória em um único array de bytes (UTF-8)
+ * com um array de offsets, sem um objeto por palavra.<br>
+ * <br>
+ * As palavras com a primeira letra em maiúsculo não são guardadas, a primeira
+ * letra é trocada na escrita: letras ascii pela diferença de 0x20 e letras fora do
+ * ascii por uma tabela pequena com as palavras que começam com elas.
+ *
+ * @author Cien
+ */
+public class BlobWordStorage implements WordStorage {
+
+    /**
+     * Construtor de um armazenamento, adiciona palavras uma por vez e rejeita duplicadas
+     */
+    public static class Builder {
+
+        //as palavras
+        private byte[] blob = new byte[4096];
+        private int blobSize = 0;
+        //os offsets, offsets[i] é o início da palavra i e offsets[i + 1] o fim
+        private int[] offsets = new int[257];
+        private int count = 0;
+        //tabela hash de endereçamento aberto para achar duplicadas (índice + 1, 0 é vazio)
+        private int[] table = new int[512];
+
+        /**
+         * Cria um novo construtor vazio
+         */
+        public Builder() {
+
+        }
+
+        /**
+         * Retorna quantas palavras foram adicionadas
+         *
+         * @return quantas palavras foram adicionadas
+         */
+        public int getNumberOfWords() {
+            return count;
+        }
+
+        //se a palavra i é igual aos bytes fornecidos
+        private boolean equalsWord(int index, byte[] data, int offset, int length) {
+            int start = this.offsets[index];
+            return Arrays.equals(
+                    this.blob, start, this.offsets[index + 1],
+                    data, offset, offset + length);
+        }
+
+        //dobra a tabela hash e reinsere tudo
+        private void growTable() {
+            int[] newTable = new int[this.table.length * 2];
+            int mask = newTable.length - 1;
+            for (int i = 0; i < this.count; i++) {
+                int start = this.offsets[i];
+                int slot = WordIndex.hash(this.blob, start, this.offsets[i + 1] - start) & mask;
+                while (newTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newTable[slot] = i + 1;
+            }
+            this.table = newTable;
+        }
+
+        /**
+         * Adiciona uma palavra em UTF-8
+         *
+         * @param data os bytes
+         * @param offset o início da palavra
+         * @param length o tamanho da palavra em bytes, maior que zero
+         * @return false se a palavra já foi adicionada antes
+         * @throws IllegalArgumentException se a palavra estiver vazia, não for UTF-8 válido ou
+         * o limite de palavras for atingido
+         */
+        public boolean add(byte[] data, int offset, int length) throws IllegalArgumentException {
+            if (length <= 0) {
+                throw new IllegalArgumentException("Word is empty at index " + this.count);
+            }
+            if (this.count >= Dictionary.MAX_DICTIONARY_SIZE) {
+                throw new IllegalArgumentException("Dictionary has more than " + Dictionary.MAX_DICTIONARY_SIZE + " words");
+            }
+            for (int i = 0; i < length; i++) {
+                if (data[offset + i] < 0) {
+                    try {
+                        StandardCharsets.UTF_8.newDecoder()
+                                .onMalformedInput(CodingErrorAction.REPORT)
+                                .onUnmappableCharacter(CodingErrorAction.REPORT)
+                                .decode(ByteBuffer.wrap(data, offset, length));
+                    } catch (CharacterCodingException ex) {
+                        throw new IllegalArgumentException("Word is not valid UTF-8 at index " + this.count, ex);
+                    }
+                    break;
+                }
+            }
+
+            int mask = this.table.length - 1;
+            int slot = WordIndex.hash(data, offset, length) & mask;
+            int entry;
+            while ((entry = this.table[slot]) != 0) {
+                if (equalsWord(entry - 1, data, offset, length)) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (this.blobSize + length > this.blob.length) {
+                long newLength = Math.max((long) this.blob.length * 2, (long) this.blobSize + length);
+                if (newLength > Integer.MAX_VALUE - 8) {
+                    throw new IllegalArgumentException("Dictionary is too large");
+                }
+                this.blob = Arrays.copyOf(this.blob, (int) newLength);
+            }
+            if (this.count + 2 > this.offsets.length) {
+                this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+            }
+            System.arraycopy(data, offset, this.blob, this.blobSize, length);
+            this.offsets[this.count] = this.blobSize;
+            this.blobSize += length;
+            this.offsets[this.count + 1] = this.blobSize;
+            this.table[slot] = this.count + 1;
+            this.count++;
+
+            if (this.count * 2 > this.table.length) {
+                growTable();
+            }
+            return true;
+        }
+
+        /**
+         * Adiciona uma palavra
+         *
+         * @param word a palavra, não pode ser null ou vazia
+         * @return false se a palavra já foi adicionada antes
+         */
+        public boolean add(String word) {
+            byte[] data = word.getBytes(StandardCharsets.UTF_8);
+            return add(data, 0, data.length);
+        }
+
+        /**
+         * Cria o armazenamento, o construtor não deve ser usado depois
+         *
+         * @return o armazenamento com as palavras adicionadas
+         * @throws IllegalArgumentException se nenhuma palavra foi adicionada
+         */
+        public BlobWordStorage build() {
+            if (this.count == 0) {
+                throw new IllegalArgumentException("Words is empty");
+            }
+            BlobWordStorage storage = new BlobWordStorage(
+                    Arrays.copyOf(this.blob, this.blobSize),
+                    Arrays.copyOf(this.offsets, this.count + 1),
+                    this.count);
+            this.blob = null;
+            this.offsets = null;
+            this.table = null;
+            return storage;
+        }
+    }
+
+    //as palavras em UTF-8
+    private final byte[] blob;
+    //os offsets das palavras
+    private final int[] offsets;
+    //a quantidade de palavras
+    private final int count;
+    //as palavras que começam com uma letra fora do ascii que muda em maiúsculo (ordenado)
+    //e a primeira letra delas em maiúsculo
+    private final int[] capitalizedIndices;
+    private final byte[][] capitalizedPrefixes;
+    //o tamanho da maior palavra em bytes
+    private final int maxWordByteLength;
+
+    //cria o armazenamento a partir dos arrays do construtor
+    private BlobWordStorage(byte[] blob, int[] offsets, int count) {
+        this.blob = blob;
+        this.offsets = offsets;
+        this.count = count;
+
+        int[] indices = new int[16];
+        byte[][] prefixes = new byte[16][];
+        int exceptions = 0;
+        int maxLength = 0;
+        for (int i = 0; i < count; i++) {
+            int start = offsets[i];
+            int length = offsets[i + 1] - start;
+            int capitalizedLength = length;
+            if (blob[start] < 0) {
+                int firstLength = firstCharLength(blob[start]);
+                String first = new String(blob, start, Math.min(firstLength, length), StandardCharsets.UTF_8);
+                String upper = Dictionary.capitalize(first);
+                if (!upper.equals(first)) {
+                    byte[] prefix = upper.getBytes(StandardCharsets.UTF_8);
+                    if (exceptions == indices.length) {
+                        indices = Arrays.copyOf(indices, exceptions * 2);
+                        prefixes = Arrays.copyOf(prefixes, exceptions * 2);
+                    }
+                    indices[exceptions] = i;
+                    prefixes[exceptions] = prefix;
+                    exceptions++;
+                    capitalizedLength = length - firstLength + prefix.length;
+                }
+            }
+            maxLength = Math.max(maxLength, Math.max(length, capitalizedLength));
+        }
+        this.capitalizedIndices = Arrays.copyOf(indices, exceptions);
+        this.capitalizedPrefixes = Arrays.copyOf(prefixes, exceptions);
+        this.maxWordByteLength = maxLength;
+    }
+
+    /**
+     * Cria um novo armazenamento a partir de um array de palavras
+     *
+     * @param words o array de palavras, não pode ser null, conter elementos nulls, vazios ou
+     * duplicados ou ser vazio
+     */
+    public BlobWordStorage(String[] words) {
+        this(fromArray(words));
+    }
+
+    //copia um armazenamento (usado pelo construtor de array)
+    private BlobWordStorage(BlobWordStorage other) {
+        this.blob = other.blob;
+        this.offsets = other.offsets;
+        this.count = other.count;
+        this.capitalizedIndices = other.capitalizedIndices;
+        this.capitalizedPrefixes = other.capitalizedPrefixes;
+        this.maxWordByteLength = other.maxWordByteLength;
+    }
+
+    //constrói um armazenamento a partir de um array de palavras
+    private static BlobWordStorage fromArray(String[] words) {
+        Builder builder = new Builder();
+        for (int i = 0; i < words.length; i++) {
+            if (words[i] == null) {
+                throw new NullPointerException("Word is null at index " + i);
+            }
+            if (!builder.add(words[i])) {
+                throw new IllegalArgumentException("Duplicated word at index " + i);
+            }
+        }
+        return builder.build();
+    }
+
+    //o tamanho em bytes de um caractere UTF-8 (do BMP) pelo primeiro byte
+    private static int firstCharLength(byte lead) {
+        if ((lead & 0xE0) == 0xC0) {
+            return 2;
+        }
+        if ((lead & 0xF0) == 0xE0) {
+            return 3;
+        }
+        return 4;
+    }
+
+    /**
+     * Retorna o tamanho de uma palavra em bytes (UTF-8), sem a primeira letra em maiúsculo
+     *
+     * @param index o índice, maior ou igual a zero, menor que a quantidade de palavras
+     * @return o tamanho da palavra em bytes
+     */
+    public int getWordByteLength(int index) {
+        return this.offsets[index + 1] - this.offsets[index];
+    }
+
+    @Override
+    public int getNumberOfWords() {
+        return this.count;
+    }
+
+    @Override
+    public String getWord(int index) {
+        int start = this.offsets[index];
+        return new String(this.blob, start, this.offsets[index + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void writeWord(int index, boolean capitalized, ByteBuffer out) {
+        int start = this.offsets[index];
+        int end = this.offsets[index + 1];
+        if (capitalized) {
+            byte lead = this.blob[start];
+            if (lead >= 'a' && lead <= 'z') {
+                out.put((byte) (lead - 0x20));
+                start++;
+            } else if (lead < 0) {
+                int exception = Arrays.binarySearch(this.capitalizedIndices, index);
+                if (exception >= 0) {
+                    out.put(this.capitalizedPrefixes[exception]);
+                    start += firstCharLength(lead);
+                }
+            }
+        }
+        out.put(this.blob, start, end - start);
+    }
+
+    @Override
+    public int getMaxWordByteLength() {
+        return maxWordByteLength;
+    }
+
+}
@@ -0,0 +1,264 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.awt.Toolkit;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.SwingWorker;
+
+/**
+ * Geração de várias senhas em segundo plano, as senhas são geradas em partes
+ * que são adicionadas na janela de texto assim que ficam prontas, enquanto uma
+ * janela de progresso mostra a velocidade e o tempo restante e permite cancelar.
+ *
+ * @author Cien
+ */
+public class BulkGenerationJob extends SwingWorker<Integer, BulkGenerationJob.Chunk> {
+
+    //quantidade de senhas por parte quando somente a senha é gerada
+    public static final int PASSWORD_CHUNK_SIZE = 4096;
+    //quantidade mínima de senhas por parte quando os códigos de verificação são calculados
+    public static final int MINIMUM_CODE_CHUNK_SIZE = 64;
+
+    //uma parte pronta das senhas
+    static class Chunk {
+
+        //o texto da parte
+        final String text;
+        //as seções para impressão da parte
+        final List<String> sections;
+        //quantas senhas foram geradas até essa parte (inclusive)
+        final int done;
+
+        Chunk(String text, List<String> sections, int done) {
+            this.text = text;
+            this.sections = sections;
+            this.done = done;
+        }
+    }
+
+    //a janela pai
+    private final java.awt.Window parent;
+    //o gerador de senhas
+    private final PasswordGenerator generator;
+    //o random usado para os salts
+    private final SecureRandom random;
+    //o nome do dicionário
+    private final String dictionaryName;
+    //a quantidade de senhas
+    private final int count;
+    //se somente a senha é gerada
+    private final boolean passwordOnly;
+
+    //as seções para impressão, acessado somente na thread do swing
+    private final List<String> sections = new ArrayList<>();
+    //quantas senhas já foram mostradas, acessado somente na thread do swing
+    private int received = 0;
+    //quando a geração começou
+    private long startTime;
+
+    //a janela de texto
+    private TextDialog textDialog;
+    //a janela de progresso
+    private ProgressDialog progressDialog;
+
+    /**
+     * Cria uma nova geração em segundo plano, use {@link #start()} para começar
+     *
+     * @param parent a janela pai
+     * @param generator o gerador de senhas
+     * @param random o random para os salts dos códigos de verificação
+     * @param dictionaryName o nome do dicionário, mostrado no texto
+     * @param count a quantidade de senhas
+     * @param passwordOnly se somente a senha é gerada
+     */
+    public BulkGenerationJob(
+            java.awt.Window parent,
+            PasswordGenerator generator, SecureRandom random, String dictionaryName,
+            int count, boolean passwordOnly) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        this.parent = parent;
+        this.generator = generator;
+        this.random = random;
+        this.dictionaryName = dictionaryName;
+        this.count = count;
+        this.passwordOnly = passwordOnly;
+    }
+
+    /**
+     * Abre as janelas e começa a geração, deve ser chamado na thread do swing
+     */
+    public void start() {
+        this.textDialog = new TextDialog(this.parent, "Texto Plano", "", java.awt.Dialog.ModalityType.MODELESS) {
+            @Override
+            protected String[] getTextSectionsForPrinting(boolean sectionCutlines) {
+                List<String> s = BulkGenerationJob.this.sections;
+                if (!sectionCutlines && !BulkGenerationJob.this.passwordOnly) {
+                    List<String> transformed = new ArrayList<>();
+                    for (int i = 0; i < s.size(); i++) {
+                        String section = s.get(i);
+                        if (i != (s.size() - 1)) {
+                            section = section + "\n";
+                        }
+                        transformed.add(section);
+                    }
+                    return transformed.toArray(String[]::new);
+                }
+                return s.toArray(String[]::new);
+            }
+        };
+        //fechar a janela de texto cancela a geração
+        this.textDialog.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                cancel(true);
+            }
+        });
+        this.progressDialog = new ProgressDialog(this.parent, "Gerando Senhas", () -> cancel(true));
+        this.progressDialog.setProgress(0, this.count, "Iniciando...");
+
+        this.textDialog.setVisible(true);
+        this.progressDialog.setVisible(true);
+
+        this.startTime = System.nanoTime();
+        execute();
+    }
+
+    //gera uma parte das senhas
+    private Chunk generateChunk(int size, int done, ExecutorService executor) throws InterruptedException {
+        String[] passwordTexts = new String[size];
+        int[] recoveryWords = new int[size];
+        for (int i = 0; i < size; i++) {
+            int[] password = this.generator.generatePassword();
+            passwordTexts[i] = this.generator.decoratePassword(password);
+            recoveryWords[i] = PasswordGenerator.calculateRecoveryWord(password);
+        }
+
+        byte[][] codes = null;
+        if (!this.passwordOnly) {
+            byte[][] randomSalts = new byte[size][];
+            char[][] passwordChars = new char[size][];
+            for (int i = 0; i < size; i++) {
+                randomSalts[i] = VerificationWindow.getRandomSalt(this.random);
+                passwordChars[i] = passwordTexts[i].toCharArray();
+            }
+            codes = VerificationWindow.getVerificationCodes(randomSalts, passwordChars, executor);
+        }
+
+        StringBuilder b = new StringBuilder();
+        List<String> chunkSections = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String passwordText = passwordTexts[i];
+            if (this.passwordOnly) {
+                b.append(passwordText).append("\n");
+                chunkSections.add(passwordText);
+            } else {
+                String plainText = MainWindow.plainText(
+                        passwordText,
+                        this.dictionaryName,
+                        this.generator.getDictionaryWord(recoveryWords[i]),
+                        VerificationWindow.getVerificationCodeHexString(codes[i])
+                );
+                b.append(plainText).append("\n\n");
+                chunkSections.add(plainText);
+            }
+        }
+        return new Chunk(b.toString(), chunkSections, done + size);
+    }
+
+    @Override
+    protected Integer doInBackground() throws Exception {
+        ExecutorService executor = null;
+        int chunkSize = PASSWORD_CHUNK_SIZE;
+        if (!this.passwordOnly) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            executor = Executors.newFixedThreadPool(threads);
+            //o suficiente para todas as lanes de todas as threads algumas vezes
+            chunkSize = Math.max(MINIMUM_CODE_CHUNK_SIZE, BatchPBKDF2.get().getLanes() * threads * 4);
+        }
+        try {
+            int done = 0;
+            while (done < this.count && !isCancelled()) {
+                int size = Math.min(chunkSize, this.count - done);
+                Chunk chunk = generateChunk(size, done, executor);
+                done = chunk.done;
+                publish(chunk);
+            }
+            return done;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Override
+    protected void process(List<Chunk> chunks) {
+        if (isCancelled()) {
+            return;
+        }
+        StringBuilder b = new StringBuilder();
+        for (Chunk c : chunks) {
+            b.append(c.text);
+            this.sections.addAll(c.sections);
+            this.received = c.done;
+        }
+        this.textDialog.appendText(b.toString());
+
+        this.progressDialog.setProgress(this.received, this.count, this.startTime, "senhas");
+    }
+
+    @Override
+    protected void done() {
+        this.progressDialog.dispose();
+        if (isCancelled()) {
+            this.textDialog.setTitle("Texto Plano (Cancelado: " + this.received + " de " + this.count + ")");
+            return;
+        }
+        try {
+            get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (CancellationException ex) {
+            //cancelado enquanto esperava
+        } catch (ExecutionException ex) {
+            Toolkit.getDefaultToolkit().beep();
+
+            ex.getCause().printStackTrace(System.err);
+            TextDialog.ofThrowable(this.parent, ex.getCause()).setVisible(true);
+        }
+    }
+
+}
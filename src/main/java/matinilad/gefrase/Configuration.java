@@ -37,7 +37,9 @@ import java.nio.file.Path;
 import java.util.Properties;
 
 /**
- * Classe utilizada para guardar as configurações do programa em xml com o Properties do java
+ * Classe utilizada para guardar as configurações do programa no formato chave=valor
+ * ({@link KeyValueFile}) com o Properties do java, arquivos xml de versões antigas
+ * são importados na primeira leitura
  * @author Cien
  */
 public class Configuration {
@@ -49,7 +51,9 @@ public class Configuration {
         PROGRAM_DIRECTORY_NAME = (userHome == null ? "" : userHome + File.separator) + "Gefrase";
     }
     //extensão do arquivo
-    public static final String EXTENSION = ".xml";
+    public static final String EXTENSION = KeyValueFile.EXTENSION;
+    //extensão do arquivo das versões antigas, só usado para importar
+    public static final String LEGACY_EXTENSION = ".xml";
     
     //lê as propriedades padrões de dentro da jar (se houver)
     private static Properties readDefault(String name) throws IOException {
@@ -59,14 +63,15 @@ public class Configuration {
         }
         try (BufferedInputStream buffered = new BufferedInputStream(in)) {
             Properties prop = new Properties();
-            prop.loadFromXML(buffered);
+            KeyValueFile.read(buffered, prop, name + EXTENSION);
             return prop;
         }
     }
 
-    //nome do arquivo de configuração, caminho do arquivo e propriedades
+    //nome do arquivo de configuração, caminho do arquivo, caminho do arquivo antigo e propriedades
     private final String name;
     private final Path path;
+    private final Path legacyPath;
     private final Properties properties;
 
     /**
@@ -80,6 +85,7 @@ public class Configuration {
     public Configuration(String name) throws IOException {
         this.name = name;
         this.path = Path.of(PROGRAM_DIRECTORY_NAME, name + EXTENSION);
+        this.legacyPath = Path.of(PROGRAM_DIRECTORY_NAME, name + LEGACY_EXTENSION);
         this.properties = new Properties(readDefault(name));
         read();
         //salva automaticamente quando a JVM encerrar
@@ -93,14 +99,18 @@ public class Configuration {
     }
     
     private void read() throws IOException {
-        if (!Files.exists(this.path)) {
-            return;
-        }
-        if (!Files.isRegularFile(this.path)) {
+        if (Files.isRegularFile(this.path)) {
+            try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(this.path))) {
+                KeyValueFile.read(in, this.properties, this.path.toString());
+            }
             return;
         }
-        try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(this.path))) {
-            this.properties.loadFromXML(in);
+        //importa o arquivo xml de uma versão antiga, ele é mantido como está
+        //e o novo arquivo é escrito no próximo save
+        if (Files.isRegularFile(this.legacyPath)) {
+            try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(this.legacyPath))) {
+                this.properties.loadFromXML(in);
+            }
         }
     }
 
@@ -138,7 +148,7 @@ public class Configuration {
         }
         Files.createDirectories(this.path.getParent());
         try (BufferedOutputStream out = new BufferedOutputStream(Files.newOutputStream(this.path))) {
-            this.properties.storeToXML(out, null);
+            KeyValueFile.write(this.properties, out);
         }
     }
 
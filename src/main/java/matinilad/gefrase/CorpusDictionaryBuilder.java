@@ -0,0 +1,514 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Constrói um dicionário a partir de um corpus de texto grande (vários gigabytes), lendo o
+ * texto em streaming com memória limitada.
+ * <p>
+ * As palavras do texto são normalizadas (minúsculo e, se configurado, sem acentos), filtradas
+ * pelo tamanho, por só terem letras e por uma lista de exclusão (palavrões por exemplo) e
+ * contadas em uma tabela hash de tipos primitivos ({@link FrequencyTable}). Quando a tabela
+ * enche as palavras menos frequentes são descartadas, então as contagens de palavras raras são
+ * aproximadas. No final exatamente 2^bits palavras são escolhidas da mais frequente para a menos
+ * frequente, pulando as que ficariam próximas demais de uma já escolhida (distância de edição ou
+ * homofonia, como no {@link DictionaryAnalyzer}).
+ * @author Cien
+ */
+public class CorpusDictionaryBuilder {
+
+    /**
+     * Tabela hash de endereçamento aberto de palavra para contagem, os caracteres das palavras
+     * ficam todos em um único char[] e a tabela em um int[], sem um objeto por palavra
+     */
+    public static class FrequencyTable {
+
+        //os caracteres das palavras
+        private char[] chars = new char[1 << 16];
+        private int charsSize = 0;
+        //início, tamanho e contagem de cada palavra
+        private int[] starts;
+        private byte[] lengths;
+        private int[] counts;
+        private int size = 0;
+        //a tabela, índice da palavra + 1, 0 é vazio
+        private int[] table;
+        //a quantidade máxima de palavras
+        private final int capacity;
+        //palavras com contagem até esse valor podem ter sido descartadas
+        private int pruneThreshold = 0;
+
+        /**
+         * Cria uma tabela
+         * @param capacity a quantidade máxima de palavras diferentes guardadas ao mesmo tempo
+         */
+        public FrequencyTable(int capacity) {
+            if (capacity < 16) {
+                throw new IllegalArgumentException("Capacity is too small: " + capacity);
+            }
+            this.capacity = capacity;
+            this.starts = new int[capacity];
+            this.lengths = new byte[capacity];
+            this.counts = new int[capacity];
+            this.table = new int[Integer.highestOneBit(capacity - 1) << 2];
+        }
+
+        //o hash de uma palavra
+        private static int hash(char[] data, int offset, int length) {
+            int h = 0x811C9DC5;
+            for (int i = 0; i < length; i++) {
+                h = (h ^ data[offset + i]) * 0x01000193;
+            }
+            return h ^ (h >>> 16);
+        }
+
+        /**
+         * Soma um na contagem de uma palavra
+         * @param data os caracteres
+         * @param offset o início da palavra
+         * @param length o tamanho da palavra, até 127 caracteres
+         */
+        public void add(char[] data, int offset, int length) {
+            int mask = this.table.length - 1;
+            int slot = hash(data, offset, length) & mask;
+            int entry;
+            while ((entry = this.table[slot]) != 0) {
+                int e = entry - 1;
+                if (this.lengths[e] == length && Arrays.equals(
+                        this.chars, this.starts[e], this.starts[e] + length,
+                        data, offset, offset + length)) {
+                    if (this.counts[e] != Integer.MAX_VALUE) {
+                        this.counts[e]++;
+                    }
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (this.size == this.capacity) {
+                prune();
+                add(data, offset, length);
+                return;
+            }
+            if (this.charsSize + length > this.chars.length) {
+                this.chars = Arrays.copyOf(this.chars, Math.max(this.chars.length * 2, this.charsSize + length));
+            }
+            System.arraycopy(data, offset, this.chars, this.charsSize, length);
+            this.starts[this.size] = this.charsSize;
+            this.lengths[this.size] = (byte) length;
+            this.counts[this.size] = this.pruneThreshold + 1;
+            this.charsSize += length;
+            this.table[slot] = ++this.size;
+        }
+
+        //descarta as palavras menos frequentes até sobrar no máximo metade da capacidade
+        //(palavras com a mesma contagem da última descartada também são descartadas, então
+        //pelo menos uma palavra sempre é descartada)
+        private void prune() {
+            int[] sorted = Arrays.copyOf(this.counts, this.size);
+            Arrays.sort(sorted);
+            int threshold = sorted[this.size - (this.capacity / 2) - 1];
+            this.pruneThreshold = Math.max(this.pruneThreshold, threshold);
+
+            char[] newChars = new char[Math.max(1 << 16, this.charsSize / 2)];
+            int newCharsSize = 0;
+            int newSize = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (this.counts[i] <= threshold) {
+                    continue;
+                }
+                int length = this.lengths[i];
+                if (newCharsSize + length > newChars.length) {
+                    newChars = Arrays.copyOf(newChars, newChars.length * 2);
+                }
+                System.arraycopy(this.chars, this.starts[i], newChars, newCharsSize, length);
+                this.starts[newSize] = newCharsSize;
+                this.lengths[newSize] = (byte) length;
+                this.counts[newSize] = this.counts[i];
+                newCharsSize += length;
+                newSize++;
+            }
+            this.chars = newChars;
+            this.charsSize = newCharsSize;
+            this.size = newSize;
+
+            Arrays.fill(this.table, 0);
+            int mask = this.table.length - 1;
+            for (int i = 0; i < this.size; i++) {
+                int slot = hash(this.chars, this.starts[i], this.lengths[i]) & mask;
+                while (this.table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.table[slot] = i + 1;
+            }
+        }
+
+        /**
+         * Retorna a quantidade de palavras diferentes na tabela
+         * @return a quantidade de palavras
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Retorna até qual contagem palavras podem ter sido descartadas por falta de espaço,
+         * 0 se nenhuma foi descartada
+         * @return a contagem máxima das palavras descartadas
+         */
+        public int getPruneThreshold() {
+            return pruneThreshold;
+        }
+
+        /**
+         * Retorna uma palavra da tabela
+         * @param index o índice, menor que {@link #size()}
+         * @return a palavra
+         */
+        public String getWord(int index) {
+            return new String(this.chars, this.starts[index], this.lengths[index]);
+        }
+
+        /**
+         * Retorna a contagem de uma palavra da tabela
+         * @param index o índice, menor que {@link #size()}
+         * @return a contagem
+         */
+        public int getCount(int index) {
+            return this.counts[index];
+        }
+    }
+
+    //configuração
+    private final int bits;
+    private final int minLength;
+    private final int maxLength;
+    private final boolean stripAccents;
+    private final int maxDistance;
+    private final int minCount;
+    private final Set<String> excluded = new HashSet<>();
+    private final FrequencyTable table;
+
+    //estatísticas
+    private long charactersRead = 0;
+    private long tokens = 0;
+    private long acceptedTokens = 0;
+    private int rejectedBySeparation = 0;
+
+    /**
+     * Cria um construtor
+     * @param bits o dicionário final terá 2^bits palavras, de 1 a 24
+     * @param minLength o tamanho mínimo das palavras
+     * @param maxLength o tamanho máximo das palavras, até 127
+     * @param stripAccents se os acentos devem ser removidos
+     * @param maxDistance a distância de edição mínima entre as palavras escolhidas é maxDistance + 1,
+     * 0 só evita os homófonos
+     * @param minCount quantas vezes uma palavra precisa aparecer no texto para ser escolhida
+     * @param capacity a quantidade máxima de palavras diferentes contadas ao mesmo tempo
+     */
+    public CorpusDictionaryBuilder(
+            int bits, int minLength, int maxLength, boolean stripAccents,
+            int maxDistance, int minCount, int capacity
+    ) {
+        if (bits < 1 || bits > 24) {
+            throw new IllegalArgumentException("Invalid number of bits: " + bits);
+        }
+        if (minLength < 1 || maxLength < minLength || maxLength > 127) {
+            throw new IllegalArgumentException("Invalid word length range: " + minLength + " to " + maxLength);
+        }
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("Invalid max distance: " + maxDistance);
+        }
+        this.bits = bits;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.stripAccents = stripAccents;
+        this.maxDistance = maxDistance;
+        this.minCount = minCount;
+        this.table = new FrequencyTable(capacity);
+    }
+
+    //normaliza uma palavra (minúsculo e sem acentos se configurado)
+    private String normalize(String word) {
+        String w = word.toLowerCase(Locale.ROOT);
+        if (this.stripAccents) {
+            return Normalizer.normalize(w, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        }
+        return Normalizer.normalize(w, Normalizer.Form.NFC);
+    }
+
+    /**
+     * Adiciona palavras para excluir (palavrões por exemplo), elas são normalizadas como
+     * as palavras do texto
+     * @param in o arquivo com uma palavra por linha em UTF-8, não é fechado
+     * @throws IOException se acontecer algum erro de leitura
+     */
+    public void addExclusions(InputStream in) throws IOException {
+        String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        for (String line : text.split("\n")) {
+            String w = line.strip();
+            if (!w.isEmpty()) {
+                this.excluded.add(normalize(w));
+            }
+        }
+    }
+
+    //conta uma palavra do texto, já em minúsculo
+    private void accept(char[] token, int length, boolean ascii) {
+        this.tokens++;
+        if (length < this.minLength || length > this.maxLength * 2) {
+            return;
+        }
+        if (!ascii) {
+            //acentos combinantes viram caracteres compostos ou são removidos
+            String w = new String(token, 0, length);
+            if (this.stripAccents) {
+                w = Normalizer.normalize(w, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+            } else {
+                w = Normalizer.normalize(w, Normalizer.Form.NFC);
+            }
+            //a normalização pode aumentar a palavra (hangul vira jamo, exclusões de composição
+            //continuam decompostas), então o tamanho é verificado antes de voltar para o token
+            length = w.length();
+            if (length < this.minLength || length > this.maxLength) {
+                return;
+            }
+            w.getChars(0, length, token, 0);
+        } else if (length > this.maxLength) {
+            return;
+        }
+        if (!this.excluded.isEmpty() && this.excluded.contains(new String(token, 0, length))) {
+            return;
+        }
+        this.acceptedTokens++;
+        this.table.add(token, 0, length);
+    }
+
+    /**
+     * Lê um texto em UTF-8 e conta as palavras dele, sequências de letras separadas por qualquer
+     * outro caractere. Bytes inválidos são trocados e separam palavras.
+     * @param in o stream do texto, não é fechado
+     * @param progress onde escrever o progresso a cada 64M caracteres, null para nenhum
+     * @throws IOException se acontecer algum erro de leitura
+     */
+    public void read(InputStream in, PrintStream progress) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
+        char[] buffer = new char[1 << 16];
+        char[] token = new char[this.maxLength * 2 + 1];
+        int length = 0;
+        boolean ascii = true;
+        boolean overflow = false;
+        long nextProgress = 1L << 26;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (Character.isLetter(c)) {
+                    if (length < token.length) {
+                        token[length++] = Character.toLowerCase(c);
+                        ascii &= (c < 0x80);
+                    } else {
+                        overflow = true;
+                    }
+                    continue;
+                }
+                //acentos combinantes fazem parte da palavra
+                if (Character.getType(c) == Character.NON_SPACING_MARK && length != 0) {
+                    if (length < token.length) {
+                        token[length++] = c;
+                        ascii = false;
+                    }
+                    continue;
+                }
+                if (length != 0) {
+                    if (!overflow) {
+                        accept(token, length, ascii);
+                    } else {
+                        this.tokens++;
+                    }
+                    length = 0;
+                    ascii = true;
+                    overflow = false;
+                }
+            }
+            this.charactersRead += read;
+            if (progress != null && this.charactersRead >= nextProgress) {
+                nextProgress += 1L << 26;
+                progress.println((this.charactersRead >> 20) + "M caracteres, "
+                        + this.tokens + " palavras, " + this.table.size() + " diferentes");
+            }
+        }
+        if (length != 0 && !overflow) {
+            accept(token, length, ascii);
+        }
+    }
+
+    /**
+     * Lê um arquivo de texto, ver {@link #read(InputStream, PrintStream)}
+     * @param file o arquivo
+     * @param progress onde escrever o progresso, null para nenhum
+     * @throws IOException se acontecer algum erro de leitura
+     */
+    public void read(Path file, PrintStream progress) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            read(in, progress);
+        }
+    }
+
+    //as variações de uma palavra com até k caracteres removidos
+    private static void deletions(String word, int k, Set<String> out) {
+        out.add(word);
+        if (k == 0 || word.length() <= 1) {
+            return;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            String shorter = word.substring(0, i) + word.substring(i + 1);
+            if (!out.contains(shorter)) {
+                deletions(shorter, k - 1, out);
+            }
+        }
+    }
+
+    /**
+     * Escolhe exatamente 2^bits palavras, da mais frequente para a menos frequente, pulando as que
+     * estão a maxDistance ou menos de uma já escolhida ou que soam igual a uma já escolhida.
+     * As palavras próximas são achadas pelas variações com caracteres removidos (symmetric delete),
+     * sem comparar com todas as escolhidas.
+     * @return as palavras em ordem alfabética
+     * @throws IOException se o texto não tiver palavras suficientes
+     */
+    public WordStorage build() throws IOException {
+        int size = this.table.size();
+        Integer[] order = new Integer[size];
+        int candidates = 0;
+        for (int i = 0; i < size; i++) {
+            if (this.table.getCount(i) >= this.minCount) {
+                order[candidates++] = i;
+            }
+        }
+        order = Arrays.copyOf(order, candidates);
+        Arrays.parallelSort(order, (o1, o2) -> {
+            int c = Integer.compare(this.table.getCount(o2), this.table.getCount(o1));
+            return (c != 0 ? c : this.table.getWord(o1).compareTo(this.table.getWord(o2)));
+        });
+
+        int target = 1 << this.bits;
+        List<String> chosen = new ArrayList<>(target);
+        Set<String> keys = new HashSet<>();
+        Map<String, List<String>> neighborhood = new HashMap<>();
+        Set<String> variants = new HashSet<>();
+        int[] previous = new int[this.maxLength + 1];
+        int[] current = new int[this.maxLength + 1];
+        this.rejectedBySeparation = 0;
+        for (int i = 0; i < order.length && chosen.size() < target; i++) {
+            String word = this.table.getWord(order[i]);
+            String key = DictionaryAnalyzer.phoneticKey(word);
+            if (keys.contains(key)) {
+                this.rejectedBySeparation++;
+                continue;
+            }
+            variants.clear();
+            deletions(word, this.maxDistance, variants);
+            boolean close = false;
+            if (this.maxDistance > 0) {
+                int[] cps = word.codePoints().toArray();
+                for (String v : variants) {
+                    List<String> near = neighborhood.get(v);
+                    if (near == null) {
+                        continue;
+                    }
+                    for (String other : near) {
+                        int[] ocps = other.codePoints().toArray();
+                        if (DictionaryAnalyzer.editDistance(cps, ocps, this.maxDistance, previous, current) <= this.maxDistance) {
+                            close = true;
+                            break;
+                        }
+                    }
+                    if (close) {
+                        break;
+                    }
+                }
+            }
+            if (close) {
+                this.rejectedBySeparation++;
+                continue;
+            }
+            chosen.add(word);
+            keys.add(key);
+            if (this.maxDistance > 0) {
+                for (String v : variants) {
+                    neighborhood.computeIfAbsent(v, k -> new ArrayList<>(1)).add(word);
+                }
+            }
+        }
+        if (chosen.size() < target) {
+            throw new IOException("Not enough words: found " + chosen.size() + " of " + target
+                    + " (" + candidates + " candidates appearing at least " + this.minCount + " times)");
+        }
+
+        chosen.sort(null);
+        BlobWordStorage.Builder builder = new BlobWordStorage.Builder();
+        for (String w : chosen) {
+            builder.add(w);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Retorna um resumo da leitura e da escolha das palavras
+     * @return o resumo
+     */
+    public String getStatistics() {
+        return this.charactersRead + " caracteres, " + this.tokens + " palavras no texto, "
+                + this.acceptedTokens + " aceitas pelos filtros, " + this.table.size() + " diferentes contadas"
+                + (this.table.getPruneThreshold() != 0
+                        ? " (palavras com até " + this.table.getPruneThreshold() + " ocorrências podem ter sido descartadas)"
+                        : "")
+                + ", " + this.rejectedBySeparation + " puladas por ficarem próximas de outra";
+    }
+
+}
@@ -27,20 +27,24 @@
 package matinilad.gefrase;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
-import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Classe do Dicionário
@@ -48,23 +52,40 @@ import java.util.Set;
  */
 public class Dictionary {
 
-    //mapa dos dicionários padrões, carregados na inicialização da classe
-    private static Map<String, Dictionary> dictionaries = new HashMap<>();
+    /**
+     * A quantidade máxima de palavras de um dicionário (2^24, 24 bits por palavra)
+     */
+    public static final int MAX_DICTIONARY_SIZE = 1 << 24;
+
+    //mapa dos metadados dos dicionários padrões, carregado na inicialização da classe
+    //as palavras de cada dicionário só são carregadas no primeiro uso
+    private static final Map<String, DictionaryInfo> defaultDictionaries = new LinkedHashMap<>();
+    //o registro atual (padrões e do usuário), um mapa imutável que é trocado inteiro
+    //quando a pasta do usuário muda, quem leu uma versão continua com ela sem travas
+    private static final AtomicReference<Map<String, DictionaryInfo>> registry = new AtomicReference<>(Map.of());
+    //trava para só uma recarga acontecer por vez
+    private static final Object reloadLock = new Object();
+    //quem é avisado quando o registro muda
+    private static final List<Runnable> registryListeners = new CopyOnWriteArrayList<>();
 
-    //carrega os dicionários padrões a partir do arquivo dictionaries.xml
+    //carrega os metadados dos dicionários padrões a partir do arquivo dictionaries.cfg
+    //(formato chave=valor, ver KeyValueFile)
     //a propriedade @dictionaries define os ids dos dicionários separados por vírgula
     //definir "idAqui.name" define o nome do dicionário, não é obrigatório
     //definir "idAqui.file" define o nome do arquivo, é obrigatório
+    //definir "idAqui.words" define a quantidade de palavras, não é obrigatório
+    //mas permite mostrar o dicionário sem carregar ele, e é verificado no carregamento
     //palavras duplicadas não são permitidas e nem dicionários vazios
     //linhas só com whitespace no dicionário são ignoradas
+    //o arquivo também pode ser um dicionário binário pré-compilado (ver BinaryWordStorage)
     private static void loadDictionaries() throws IOException {
         Properties properties = new Properties();
-        InputStream in = Dictionary.class.getResourceAsStream("dictionaries.xml");
+        InputStream in = Dictionary.class.getResourceAsStream("dictionaries" + KeyValueFile.EXTENSION);
         if (in == null) {
             return;
         }
         try (BufferedInputStream buffered = new BufferedInputStream(in)) {
-            properties.loadFromXML(new BufferedInputStream(buffered));
+            KeyValueFile.read(buffered, properties, "dictionaries" + KeyValueFile.EXTENSION);
         }
 
         String[] ids = properties.getProperty("@dictionaries", "").split(",");
@@ -81,94 +102,380 @@ public class Dictionary {
             if (file == null) {
                 throw new IOException("Dictionary file not set for "+id);
             }
-
-            InputStream fileIn = Dictionary.class.getResourceAsStream(file);
-            if (fileIn == null) {
-                throw new IOException("Dictionary file '"+file+"' not found for "+id);
-            }
             
-            Set<String> duplicateWordCheck = new HashSet<>();
-            List<String> wordsList = new ArrayList<>();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(fileIn, StandardCharsets.UTF_8))) {
-                int lineCount = 0;
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    lineCount++;
-                    
-                    if (line.isBlank()) {
-                        continue;
-                    }
-                    wordsList.add(line);
-                    if (!duplicateWordCheck.add(line)) {
-                        throw new IOException("Duplicated word found in line "+lineCount+" in file '"+file+"' of dictionary "+id);
-                    }
+            int words = -1;
+            String wordsValue = properties.getProperty(id + ".words");
+            if (wordsValue != null) {
+                try {
+                    words = Integer.parseInt(wordsValue.trim());
+                } catch (NumberFormatException ex) {
+                    throw new IOException("Invalid number of words for "+id+": "+wordsValue, ex);
                 }
             }
             
-            if (wordsList.isEmpty()) {
-                throw new IOException("Dictionary file '"+file+"' is empty for "+id);
-            }
-            
-            dictionaries.put(id, 
-                    new Dictionary(
+            defaultDictionaries.put(id, 
+                    new DictionaryInfo(
                             id,
                             properties.getProperty(id + ".name"),
-                            wordsList.toArray(String[]::new)
+                            file,
+                            words
                     ));
         }
     }
     
-    //carrega os dicionários padrões quando a classe iniciar
+    //cria um registro com os dicionários padrões e os da pasta do usuário (ver UserDictionaries)
+    //um erro na pasta do usuário não impede o programa de abrir com os dicionários padrões
+    private static Map<String, DictionaryInfo> createRegistry(Map<String, DictionaryInfo> previous) {
+        Map<String, DictionaryInfo> map = new LinkedHashMap<>(defaultDictionaries);
+        try {
+            for (DictionaryInfo info : UserDictionaries.discover(previous)) {
+                map.putIfAbsent(info.getId(), info);
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        return Collections.unmodifiableMap(map);
+    }
+    
+    //carrega os metadados dos dicionários padrões e do usuário quando a classe iniciar
     static {
         try {
             loadDictionaries();
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
+        registry.set(createRegistry(Map.of()));
+    }
+    
+    /**
+     * Procura de novo os dicionários da pasta do usuário e troca o registro se algo mudou.
+     * Os dicionários novos ou modificados são carregados antes da troca (um arquivo de texto
+     * grande é validado aqui), então isso não deve ser chamado na thread da interface.
+     * Os listeners são chamados nesta thread depois da troca.
+     * @return true se o registro mudou
+     */
+    public static boolean reloadUserDictionaries() {
+        synchronized (reloadLock) {
+            Map<String, DictionaryInfo> previous = registry.get();
+            Map<String, DictionaryInfo> next = createRegistry(previous);
+            
+            boolean changed = !previous.keySet().equals(next.keySet());
+            for (DictionaryInfo info : next.values()) {
+                if (previous.get(info.getId()) == info) {
+                    continue;
+                }
+                changed = true;
+                try {
+                    info.getDictionary();
+                } catch (RuntimeException ex) {
+                    //continua no registro (arquivo ilegível, grande demais...), o erro aparece
+                    //quando o usuário selecionar ele
+                    ex.printStackTrace();
+                }
+            }
+            if (!changed) {
+                return false;
+            }
+            registry.set(next);
+        }
+        for (Runnable listener : registryListeners) {
+            listener.run();
+        }
+        return true;
+    }
+    
+    /**
+     * Adiciona um listener chamado quando o registro de dicionários muda, na thread que fez
+     * a recarga (use {@link javax.swing.SwingUtilities#invokeLater(Runnable)} para mexer na interface)
+     * @param listener o listener
+     */
+    public static void addRegistryListener(Runnable listener) {
+        registryListeners.add(Objects.requireNonNull(listener, "listener is null"));
+    }
+    
+    /**
+     * Remove um listener do registro de dicionários
+     * @param listener o listener
+     */
+    public static void removeRegistryListener(Runnable listener) {
+        registryListeners.remove(listener);
+    }
+    
+    /**
+     * Lê as palavras de um arquivo de dicionário, detectando se é um dicionário
+     * binário pré-compilado ({@link BinaryWordStorage}), um dicionário comprimido
+     * ({@link FrontCodedWordStorage}) ou um arquivo de texto com uma palavra por linha
+     * @param in o stream do arquivo
+     * @param source o nome do arquivo, para as mensagens de erro
+     * @return as palavras do arquivo
+     * @throws IOException se o arquivo não puder ser lido ou for inválido
+     */
+    public static WordStorage readWordStorage(InputStream in, String source) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        buffered.mark(BinaryWordStorage.MAGIC.length);
+        byte[] header = buffered.readNBytes(BinaryWordStorage.MAGIC.length);
+        buffered.reset();
+        if (BinaryWordStorage.isBinary(header, header.length)) {
+            return BinaryWordStorage.read(buffered, source);
+        }
+        if (FrontCodedWordStorage.isFrontCoded(header, header.length)) {
+            return FrontCodedWordStorage.read(buffered, source);
+        }
+        return readTextWords(buffered, source);
+    }
+    
+    /**
+     * Lê as palavras de um arquivo de texto com uma palavra por linha (UTF-8),
+     * linhas só com whitespace são ignoradas. As linhas são lidas como bytes direto
+     * para um {@link BlobWordStorage}, sem criar uma String por palavra.
+     * @param in o stream do arquivo
+     * @param source o nome do arquivo, para as mensagens de erro
+     * @return as palavras do arquivo
+     * @throws IOException se o arquivo não puder ser lido, estiver vazio, tiver palavras
+     * duplicadas ou inválidas ou mais de {@link #MAX_DICTIONARY_SIZE} palavras
+     */
+    public static BlobWordStorage readTextWords(InputStream in, String source) throws IOException {
+        BlobWordStorage.Builder builder = new BlobWordStorage.Builder();
+        byte[] buffer = new byte[65536];
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        int lineCount = 0;
+        //se o último byte foi um '\r', para um '\n' logo depois não contar como outra linha
+        boolean carriageReturn = false;
+        boolean endOfFile = false;
+        while (!endOfFile) {
+            int read = in.read(buffer);
+            if (read == -1) {
+                endOfFile = true;
+                read = 0;
+            }
+            for (int i = 0; i <= read; i++) {
+                boolean endOfLine;
+                if (i == read) {
+                    //a última linha sem '\n' no final
+                    endOfLine = endOfFile && lineLength != 0;
+                    if (!endOfLine) {
+                        break;
+                    }
+                } else {
+                    byte b = buffer[i];
+                    //como no BufferedReader.readLine, '\n', '\r' ou "\r\n" terminam uma linha
+                    if (b == '\n' && carriageReturn) {
+                        carriageReturn = false;
+                        continue;
+                    }
+                    carriageReturn = (b == '\r');
+                    endOfLine = (b == '\n' || b == '\r');
+                    if (!endOfLine) {
+                        if (lineLength == line.length) {
+                            line = Arrays.copyOf(line, line.length * 2);
+                        }
+                        line[lineLength++] = b;
+                        continue;
+                    }
+                }
+                lineCount++;
+                
+                int length = lineLength;
+                lineLength = 0;
+                if (isBlank(line, length)) {
+                    continue;
+                }
+                try {
+                    if (!builder.add(line, 0, length)) {
+                        throw new IOException("Duplicated word found in line "+lineCount+" in file '"+source+"'");
+                    }
+                } catch (IllegalArgumentException ex) {
+                    throw new IOException(ex.getMessage()+" (line "+lineCount+" in file '"+source+"')", ex);
+                }
+            }
+        }
+        
+        if (builder.getNumberOfWords() == 0) {
+            throw new IOException("Dictionary file '"+source+"' is empty");
+        }
+        return builder.build();
+    }
+    
+    //se uma linha só tem whitespace, como String.isBlank
+    private static boolean isBlank(byte[] line, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = line[i];
+            if (b < 0) {
+                return new String(line, 0, length, StandardCharsets.UTF_8).isBlank();
+            }
+            if (!Character.isWhitespace(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Abre um arquivo de dicionário fora do jar, dicionários binários são mapeados
+     * na memória e não são validados palavra por palavra
+     * @param file o arquivo
+     * @return as palavras do arquivo
+     * @throws IOException se o arquivo não puder ser lido ou for inválido
+     */
+    public static WordStorage openWordStorage(Path file) throws IOException {
+        byte[] header;
+        try (InputStream in = Files.newInputStream(file)) {
+            header = in.readNBytes(BinaryWordStorage.MAGIC.length);
+        }
+        if (BinaryWordStorage.isBinary(header, header.length)) {
+            return BinaryWordStorage.map(file);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return readWordStorage(in, file.toString());
+        }
+    }
+    
+    /**
+     * Escreve as palavras em um arquivo de dicionário: em texto (uma palavra por linha) se o arquivo
+     * terminar com .txt, no formato comprimido se terminar com {@link FrontCodedWordStorage#EXTENSION}
+     * e no formato binário nos outros casos
+     * @param storage as palavras
+     * @param output o arquivo de saída
+     * @throws IOException se acontecer algum erro de escrita
+     */
+    public static void writeWordStorage(WordStorage storage, Path output) throws IOException {
+        String name = output.getFileName().toString().toLowerCase();
+        try (FileChannel channel = FileChannel.open(output,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            if (name.endsWith(".txt")) {
+                ByteBuffer buffer = ByteBuffer.allocate(65536);
+                for (int i = 0; i < storage.getNumberOfWords(); i++) {
+                    if (buffer.remaining() < storage.getMaxWordByteLength() + 1) {
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                    storage.writeWord(i, false, buffer);
+                    buffer.put((byte) '\n');
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } else if (name.endsWith(FrontCodedWordStorage.EXTENSION)) {
+                FrontCodedWordStorage.write(storage, channel);
+            } else {
+                BinaryWordStorage.write(storage, channel);
+            }
+        }
+    }
+    
+    /**
+     * Compila um arquivo de dicionário para o formato binário, ou para o formato
+     * comprimido se o arquivo de saída terminar com {@link FrontCodedWordStorage#EXTENSION}
+     * @param input o arquivo de entrada (texto, binário ou comprimido)
+     * @param output o arquivo de saída
+     * @return o armazenamento de palavras do arquivo de saída
+     * @throws IOException se acontecer algum erro de leitura ou escrita
+     */
+    public static WordStorage compile(Path input, Path output) throws IOException {
+        writeWordStorage(openWordStorage(input), output);
+        return openWordStorage(output);
     }
     
     /**
-     * Retorna um dicionário definido pelo id
+     * Retorna um dicionário definido pelo id, as palavras são carregadas no primeiro uso
      * @param id o id do dicionário
      * @return o dicionário ou null se não houver
+     * @throws UncheckedIOException se o arquivo do dicionário não puder ser lido ou for inválido
      */
     public static Dictionary getDictionary(String id) {
-        return dictionaries.get(id);
+        DictionaryInfo info = registry.get().get(id);
+        if (info == null) {
+            return null;
+        }
+        return info.getDictionary();
+    }
+    
+    /**
+     * Retorna os metadados de um dicionário definido pelo id, sem carregar as palavras
+     * @param id o id do dicionário
+     * @return os metadados do dicionário ou null se não houver
+     */
+    public static DictionaryInfo getDictionaryInfo(String id) {
+        return registry.get().get(id);
+    }
+    
+    /**
+     * Retorna os metadados dos dicionários padrões e do usuário, sem carregar as palavras
+     * @return os metadados dos dicionários padrões e do usuário
+     */
+    public static DictionaryInfo[] getDictionaryInfos() {
+        return registry.get().values().toArray(DictionaryInfo[]::new);
     }
     
     /**
-     * Retorna a lista de dicionários padrões carregados
-     * @return a lista de dicionários padrões carregados
+     * Retorna a lista de dicionários padrões e do usuário, carregando as palavras de todos eles
+     * @return a lista de dicionários padrões e do usuário
+     * @throws UncheckedIOException se o arquivo de algum dicionário não puder ser lido ou for inválido
      */
     public static Dictionary[] getDictionaries() {
-        return dictionaries.values().toArray(Dictionary[]::new);
+        return registry.get().values().stream()
+                .map(DictionaryInfo::getDictionary)
+                .toArray(Dictionary[]::new);
+    }
+
+    /**
+     * Retorna uma palavra com a primeira letra em maiúsculo
+     * @param word a palavra, não pode ser vazia
+     * @return a palavra com a primeira letra em maiúsculo
+     */
+    public static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
     }
 
     private final String id;
     private final String name;
-    private final String[] words;
+    private final WordStorage storage;
     private final float bitsPerWord;
+    //o índice reverso, criado na primeira busca por palavra
+    private volatile WordIndex wordIndex = null;
+    //o índice em ordem alfabética, criado na primeira pesquisa por prefixo
+    private volatile SortedWordIndex sortedWordIndex = null;
+    //o índice de trigramas, criado na primeira pesquisa por parte de palavra
+    private volatile TrigramIndex trigramIndex = null;
+    //o índice de pesquisa aproximada, criado na primeira pesquisa aproximada
+    private volatile FuzzyWordIndex fuzzyWordIndex = null;
 
     /**
      * Cria um novo dicionário
      * A quantidade de bits por palavra é calculada como log(words.length) / log(2.0)
      * @param id O id do dicionário, não pode ser null
      * @param name O nome do dicionário, id será utilizado no lugar se for null
-     * @param words O array de palavras não pode ser null, conter elementos nulls ou ser vazio
+     * @param words O array de palavras não pode ser null, conter elementos nulls, vazios ou duplicados ou ser vazio
      */
     public Dictionary(String id, String name, String[] words) {
+        this(id, name, new BlobWordStorage(words));
+    }
+
+    /**
+     * Cria um novo dicionário a partir de um armazenamento de palavras
+     * A quantidade de bits por palavra é calculada como log(quantidade de palavras) / log(2.0)
+     * @param id O id do dicionário, não pode ser null
+     * @param name O nome do dicionário, id será utilizado no lugar se for null
+     * @param storage O armazenamento de palavras, não pode ser null ou vazio
+     */
+    public Dictionary(String id, String name, WordStorage storage) {
         this.id = Objects.requireNonNull(id);
         this.name = (name == null ? this.id : name);
-        this.words = words.clone();
-        if (this.words.length == 0) {
+        this.storage = Objects.requireNonNull(storage);
+        if (this.storage.getNumberOfWords() <= 0) {
             throw new IllegalArgumentException("Words is empty");
         }
-        for (int i = 0; i < this.words.length; i++) {
-            if (this.words[i] == null) {
-                throw new NullPointerException("Word is null at index " + i);
-            }
+        if (this.storage.getNumberOfWords() > MAX_DICTIONARY_SIZE) {
+            throw new IllegalArgumentException("Dictionary has more than " + MAX_DICTIONARY_SIZE + " words");
         }
-        this.bitsPerWord = (float) (Math.log(this.words.length) / Math.log(2.0));
+        this.bitsPerWord = (float) (Math.log(this.storage.getNumberOfWords()) / Math.log(2.0));
     }
 
     /**
@@ -188,11 +495,24 @@ public class Dictionary {
     }
 
     /**
-     * Retorna uma cópia do array de palavras
-     * @return uma cópia do array de palavras, nunca null
+     * Retorna um novo array com todas as palavras, cria uma String por palavra,
+     * prefira {@link #getWord(int)} em dicionários grandes
+     * @return um novo array de palavras, nunca null
      */
     public String[] getWords() {
-        return words.clone();
+        String[] words = new String[this.storage.getNumberOfWords()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = this.storage.getWord(i);
+        }
+        return words;
+    }
+
+    /**
+     * Retorna o armazenamento de palavras do dicionário
+     * @return o armazenamento de palavras, nunca null
+     */
+    public WordStorage getStorage() {
+        return storage;
     }
 
     /**
@@ -208,7 +528,7 @@ public class Dictionary {
      * @return a quantidade de palavras no dicionário
      */
     public int getNumberOfWords() {
-        return this.words.length;
+        return this.storage.getNumberOfWords();
     }
 
     /**
@@ -217,7 +537,160 @@ public class Dictionary {
      * @return a palavra, nunca null
      */
     public String getWord(int index) {
-        return this.words[index];
+        return this.storage.getWord(index);
+    }
+
+    /**
+     * Retorna a palavra de um índice ou o índice em hexadecimal (ex: 0x1A2B) se
+     * estiver fora do dicionário, o que pode acontecer com a palavra de recuperação
+     * de dicionários que não tem uma potência de dois em tamanho
+     * @param index o índice, maior ou igual a zero
+     * @return a palavra ou o índice em hexadecimal, nunca null
+     */
+    public String getWordOrHex(int index) {
+        if (index >= getNumberOfWords()) {
+            return "0x" + Integer.toHexString(index).toUpperCase();
+        }
+        return getWord(index);
+    }
+
+    /**
+     * Retorna o índice reverso do dicionário (palavra para índice), criado no primeiro uso
+     * @return o índice reverso
+     */
+    public WordIndex getWordIndex() {
+        WordIndex index = this.wordIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = this.wordIndex;
+                if (index == null) {
+                    index = new WordIndex(this.storage);
+                    this.wordIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Retorna o índice em ordem alfabética do dicionário (para pesquisa por prefixo), criado no
+     * primeiro uso
+     * @return o índice em ordem alfabética
+     */
+    public SortedWordIndex getSortedWordIndex() {
+        SortedWordIndex index = this.sortedWordIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = this.sortedWordIndex;
+                if (index == null) {
+                    index = new SortedWordIndex(this);
+                    this.sortedWordIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Retorna o índice de trigramas do dicionário (para pesquisa por parte de palavra), criado
+     * no primeiro uso
+     * @return o índice de trigramas
+     */
+    public TrigramIndex getTrigramIndex() {
+        TrigramIndex index = this.trigramIndex;
+        if (index == null) {
+            SortedWordIndex sorted = getSortedWordIndex();
+            synchronized (this) {
+                index = this.trigramIndex;
+                if (index == null) {
+                    index = new TrigramIndex(sorted);
+                    this.trigramIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Retorna o índice de pesquisa aproximada do dicionário (palavras com letras erradas), criado
+     * no primeiro uso
+     * @return o índice de pesquisa aproximada
+     */
+    public FuzzyWordIndex getFuzzyWordIndex() {
+        FuzzyWordIndex index = this.fuzzyWordIndex;
+        if (index == null) {
+            SortedWordIndex sorted = getSortedWordIndex();
+            synchronized (this) {
+                index = this.fuzzyWordIndex;
+                if (index == null) {
+                    index = new FuzzyWordIndex(sorted);
+                    this.fuzzyWordIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Procura o índice de uma palavra em tempo constante, uma palavra com a primeira
+     * letra em maiúsculo (como na senha gerada) também é aceita
+     * @param word a palavra
+     * @return o índice da palavra ou -1 se ela não estiver no dicionário
+     */
+    public int indexOf(String word) {
+        if (word.isEmpty()) {
+            return -1;
+        }
+        WordIndex index = getWordIndex();
+        int result = index.indexOf(word);
+        if (result == -1) {
+            int first = word.codePointAt(0);
+            int lower = Character.toLowerCase(first);
+            if (lower != first) {
+                result = index.indexOf(new StringBuilder(word.length())
+                        .appendCodePoint(lower)
+                        .append(word, Character.charCount(first), word.length())
+                        .toString());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * O inverso de {@link #getWordOrHex(int)}, aceita uma palavra do dicionário ou um
+     * índice em hexadecimal (ex: 0x1A2B)
+     * @param word a palavra ou o índice em hexadecimal
+     * @return o índice ou -1 se não for uma palavra do dicionário ou um índice válido
+     */
+    public int indexOfWordOrHex(String word) {
+        if (word.length() > 2 && (word.startsWith("0x") || word.startsWith("0X"))) {
+            try {
+                int index = Integer.parseInt(word.substring(2), 16);
+                return (index >= 0 && index < MAX_DICTIONARY_SIZE ? index : -1);
+            } catch (NumberFormatException ex) {
+                return -1;
+            }
+        }
+        return indexOf(word);
+    }
+
+    /**
+     * Escreve a palavra de um índice do dicionário em UTF-8 em um buffer, sem alocar nada
+     * @param index o índice, maior ou igual a zero, menor que a quantidade de palavras no dicionário
+     * @param capitalized se a palavra deve ser escrita com a primeira letra em maiúsculo
+     * @param out o buffer de saída
+     */
+    public void writeWord(int index, boolean capitalized, ByteBuffer out) {
+        this.storage.writeWord(index, capitalized, out);
+    }
+
+    /**
+     * Retorna o tamanho em bytes (UTF-8) da maior palavra do dicionário,
+     * considerando também as palavras com a primeira letra em maiúsculo
+     * @return o tamanho em bytes da maior palavra
+     */
+    public int getMaxWordByteLength() {
+        return this.storage.getMaxWordByteLength();
     }
 
     /**
@@ -0,0 +1,683 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Analisa a qualidade de um dicionário procurando palavras fáceis de confundir na hora de
+ * digitar ou transcrever uma senha: pares com distância de edição pequena (abafa/abafe),
+ * palavras que só se distinguem depois de um prefixo longo e homófonos (cassa/caça).
+ * <p>
+ * As distâncias de edição são calculadas para todos os pares com tamanhos próximos em paralelo
+ * com um {@link ForkJoinPool}, o resultado tem um relatório em texto e uma lista de exclusão
+ * (uma palavra por linha) que deixa o dicionário sem nenhum par confuso.
+ * @author Cien
+ */
+public class DictionaryAnalyzer {
+
+    /**
+     * O resultado de uma análise
+     */
+    public static class Result {
+
+        private final Dictionary dictionary;
+        private final int maxDistance;
+        private final long comparedPairs;
+        private final long[] closePairs;
+        private final int[] prefixDepth;
+        private final int[] prefixOfOther;
+        private final int[][] homophoneGroups;
+        private final int[][] clusters;
+        private final int[] exclusions;
+        private final long elapsedNanos;
+        private final int parallelism;
+
+        private Result(
+                Dictionary dictionary, int maxDistance, long comparedPairs, long[] closePairs,
+                int[] prefixDepth, int[] prefixOfOther, int[][] homophoneGroups, int[][] clusters,
+                int[] exclusions, long elapsedNanos, int parallelism
+        ) {
+            this.dictionary = dictionary;
+            this.maxDistance = maxDistance;
+            this.comparedPairs = comparedPairs;
+            this.closePairs = closePairs;
+            this.prefixDepth = prefixDepth;
+            this.prefixOfOther = prefixOfOther;
+            this.homophoneGroups = homophoneGroups;
+            this.clusters = clusters;
+            this.exclusions = exclusions;
+            this.elapsedNanos = elapsedNanos;
+            this.parallelism = parallelism;
+        }
+
+        /**
+         * Retorna o dicionário analisado
+         * @return o dicionário
+         */
+        public Dictionary getDictionary() {
+            return dictionary;
+        }
+
+        /**
+         * Retorna a distância de edição máxima para um par ser considerado próximo
+         * @return a distância máxima
+         */
+        public int getMaxDistance() {
+            return maxDistance;
+        }
+
+        /**
+         * Retorna quantos pares tiveram a distância calculada (os outros foram descartados
+         * pela diferença de tamanho)
+         * @return a quantidade de pares comparados
+         */
+        public long getComparedPairs() {
+            return comparedPairs;
+        }
+
+        /**
+         * Retorna os pares próximos, cada um como (a &lt;&lt; 32) | b com a &lt; b
+         * @return os pares próximos, em ordem
+         */
+        public long[] getClosePairs() {
+            return closePairs.clone();
+        }
+
+        /**
+         * Retorna a distância de edição de um par próximo
+         * @param pair o par de {@link #getClosePairs()}
+         * @return a distância
+         */
+        public int getDistance(long pair) {
+            String a = this.dictionary.getWord((int) (pair >>> 32)).toLowerCase(Locale.ROOT);
+            String b = this.dictionary.getWord((int) pair).toLowerCase(Locale.ROOT);
+            return editDistance(a.codePoints().toArray(), b.codePoints().toArray(), this.maxDistance,
+                    new int[b.length() + 1], new int[b.length() + 1]);
+        }
+
+        /**
+         * Retorna para cada palavra quantos caracteres do começo são necessários para
+         * identificar ela entre todas as outras
+         * @return a profundidade de prefixo único de cada palavra
+         */
+        public int[] getPrefixDepth() {
+            return prefixDepth.clone();
+        }
+
+        /**
+         * Retorna as palavras que são o começo de outra palavra (e então não têm prefixo único)
+         * @return os índices das palavras
+         */
+        public int[] getPrefixOfOther() {
+            return prefixOfOther.clone();
+        }
+
+        /**
+         * Retorna os grupos de palavras com a mesma pronúncia aproximada
+         * @return os grupos de homófonos, cada um com os índices das palavras
+         */
+        public int[][] getHomophoneGroups() {
+            return homophoneGroups.clone();
+        }
+
+        /**
+         * Retorna os grupos de palavras confusas, ligadas por pares próximos ou por homofonia
+         * @return os grupos, do maior para o menor
+         */
+        public int[][] getClusters() {
+            return clusters.clone();
+        }
+
+        /**
+         * Retorna as palavras sugeridas para remoção, depois de remover elas nenhum par
+         * próximo ou homófono sobra no dicionário
+         * @return os índices das palavras, em ordem
+         */
+        public int[] getExclusions() {
+            return exclusions.clone();
+        }
+
+        /**
+         * Escreve a lista de exclusão, uma palavra por linha
+         * @param out a saída
+         * @throws IOException se acontecer algum erro de escrita
+         */
+        public void writeExclusions(Writer out) throws IOException {
+            for (int index : this.exclusions) {
+                out.write(this.dictionary.getWord(index));
+                out.write('\n');
+            }
+            out.flush();
+        }
+
+        //escreve uma lista de palavras separada por vírgula
+        private void appendWords(StringBuilder b, int[] indices, int limit) {
+            for (int i = 0; i < indices.length && i < limit; i++) {
+                if (i != 0) {
+                    b.append(", ");
+                }
+                b.append(this.dictionary.getWord(indices[i]));
+            }
+            if (indices.length > limit) {
+                b.append(", ... (+").append(indices.length - limit).append(')');
+            }
+        }
+
+        /**
+         * Escreve o relatório da análise
+         * @param out a saída
+         * @throws IOException se acontecer algum erro de escrita
+         */
+        public void writeReport(Writer out) throws IOException {
+            int n = this.dictionary.getNumberOfWords();
+            StringBuilder b = new StringBuilder();
+            b.append("Análise do dicionário ").append(this.dictionary).append('\n');
+            b.append("Palavras: ").append(n).append('\n');
+            b.append("Tempo: ").append(String.format("%.1f", this.elapsedNanos / 1E6))
+                    .append(" ms com ").append(this.parallelism).append(" thread(s)\n\n");
+
+            b.append("== Distância de edição (máximo ").append(this.maxDistance).append(") ==\n");
+            b.append("Pares comparados: ").append(this.comparedPairs).append(" de ")
+                    .append(((long) n * (n - 1)) / 2).append(" (os outros têm tamanhos distantes demais)\n");
+            int[] byDistance = new int[this.maxDistance + 1];
+            for (long pair : this.closePairs) {
+                byDistance[getDistance(pair)]++;
+            }
+            b.append("Pares próximos: ").append(this.closePairs.length).append('\n');
+            for (int d = 1; d < byDistance.length; d++) {
+                b.append("  distância ").append(d).append(": ").append(byDistance[d]).append('\n');
+            }
+            for (int i = 0; i < this.closePairs.length && i < 50; i++) {
+                long pair = this.closePairs[i];
+                b.append("  ").append(this.dictionary.getWord((int) (pair >>> 32)))
+                        .append(" / ").append(this.dictionary.getWord((int) pair)).append('\n');
+            }
+            if (this.closePairs.length > 50) {
+                b.append("  ... (+").append(this.closePairs.length - 50).append(")\n");
+            }
+
+            b.append("\n== Prefixo único ==\n");
+            int max = 0;
+            long sum = 0;
+            for (int d : this.prefixDepth) {
+                max = Math.max(max, d);
+                sum += d;
+            }
+            int[] histogram = new int[max + 1];
+            for (int d : this.prefixDepth) {
+                histogram[d]++;
+            }
+            b.append("Profundidade média: ").append(String.format("%.2f", sum / (double) n))
+                    .append(", máxima: ").append(max).append('\n');
+            for (int d = 1; d < histogram.length; d++) {
+                if (histogram[d] != 0) {
+                    b.append("  ").append(d).append(" caractere(s): ").append(histogram[d]).append('\n');
+                }
+            }
+            b.append("Palavras que são o começo de outra: ").append(this.prefixOfOther.length).append('\n');
+            if (this.prefixOfOther.length != 0) {
+                b.append("  ");
+                appendWords(b, this.prefixOfOther, 50);
+                b.append('\n');
+            }
+
+            b.append("\n== Homófonos ==\n");
+            b.append("Grupos: ").append(this.homophoneGroups.length).append('\n');
+            for (int i = 0; i < this.homophoneGroups.length && i < 50; i++) {
+                b.append("  ");
+                appendWords(b, this.homophoneGroups[i], 20);
+                b.append('\n');
+            }
+
+            b.append("\n== Grupos confusos ==\n");
+            b.append("Grupos: ").append(this.clusters.length).append('\n');
+            for (int i = 0; i < this.clusters.length && i < 50; i++) {
+                b.append("  [").append(this.clusters[i].length).append("] ");
+                appendWords(b, this.clusters[i], 20);
+                b.append('\n');
+            }
+
+            int remaining = n - this.exclusions.length;
+            b.append("\n== Exclusões sugeridas ==\n");
+            b.append("Palavras a remover: ").append(this.exclusions.length)
+                    .append(", restam ").append(remaining);
+            if (remaining > 0) {
+                int bits = 31 - Integer.numberOfLeadingZeros(remaining);
+                b.append(" (2^").append(bits).append(" = ").append(1 << bits).append(')');
+            }
+            b.append('\n');
+
+            out.write(b.toString());
+            out.flush();
+        }
+    }
+
+    /**
+     * Calcula a distância de edição (Levenshtein) entre duas palavras, parando cedo quando
+     * ela passa de um máximo
+     * @param a os code points da primeira palavra
+     * @param b os code points da segunda palavra
+     * @param max a distância máxima de interesse
+     * @param previous um array auxiliar com pelo menos b.length + 1 elementos
+     * @param current um array auxiliar com pelo menos b.length + 1 elementos
+     * @return a distância, ou max + 1 se for maior que max
+     */
+    public static int editDistance(int[] a, int[] b, int max, int[] previous, int[] current) {
+        int n = a.length;
+        int m = b.length;
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = i;
+            int ca = a[i - 1];
+            for (int j = 1; j <= m; j++) {
+                int cost = (ca == b[j - 1] ? 0 : 1);
+                int v = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                current[j] = v;
+                if (v < rowMin) {
+                    rowMin = v;
+                }
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    /**
+     * Calcula uma chave de pronúncia aproximada do português para uma palavra, palavras com
+     * a mesma chave soam parecidas (ex: caça, cassa e kassa)
+     * @param word a palavra
+     * @return a chave
+     */
+    public static String phoneticKey(String word) {
+        String w = word.toLowerCase(Locale.ROOT).replace('ç', 's');
+        w = Normalizer.normalize(w, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        w = w
+                .replace("ch", "x")
+                .replace("sh", "x")
+                .replace("lh", "li")
+                .replace("nh", "ni")
+                .replace("ph", "f")
+                .replace('y', 'i')
+                .replace('w', 'v')
+                .replace("h", "");
+        StringBuilder b = new StringBuilder(w.length());
+        for (int i = 0; i < w.length(); i++) {
+            char c = w.charAt(i);
+            char next = (i + 1 < w.length() ? w.charAt(i + 1) : 0);
+            boolean soft = (next == 'e' || next == 'i');
+            switch (c) {
+                case 'c' -> {
+                    //o c de "sc" antes de e/i não soa (nascer, piscina)
+                    if (soft && b.length() != 0 && b.charAt(b.length() - 1) == 's') {
+                        continue;
+                    }
+                    c = (soft ? 's' : 'k');
+                }
+                case 'g' -> {
+                    if (next == 'u' && i + 2 < w.length() && (w.charAt(i + 2) == 'e' || w.charAt(i + 2) == 'i')) {
+                        i++;
+                    } else if (soft) {
+                        c = 'j';
+                    }
+                }
+                case 'q' -> {
+                    //o u de "que" e "qui" não soa (quero, aqui), em "qua" soa (qual)
+                    if (next == 'u' && i + 2 < w.length() && (w.charAt(i + 2) == 'e' || w.charAt(i + 2) == 'i')) {
+                        i++;
+                    }
+                    c = 'k';
+                }
+                case 'z' -> c = 's';
+                default -> {
+                }
+            }
+            //letras dobradas contam como uma (ss soa como s e rr/r é uma troca comum na escrita)
+            if (b.length() != 0 && b.charAt(b.length() - 1) == c) {
+                continue;
+            }
+            b.append(c);
+        }
+        return b.toString();
+    }
+
+    //lista de longs que cresce
+    private static class LongList {
+
+        long[] data = new long[16];
+        int size = 0;
+
+        void add(long value) {
+            if (this.size == this.data.length) {
+                this.data = Arrays.copyOf(this.data, this.size * 2);
+            }
+            this.data[this.size++] = value;
+        }
+    }
+
+    //o dicionário
+    private final Dictionary dictionary;
+    //a distância máxima
+    private final int maxDistance;
+    //as palavras em minúsculo como code points
+    private int[][] codePoints;
+    //a máscara de letras de cada palavra, para descartar pares rápido
+    private long[] letterMasks;
+    //as posições das palavras ordenadas pelo tamanho
+    private int[] byLength;
+
+    /**
+     * Cria um analisador
+     * @param dictionary o dicionário
+     * @param maxDistance a distância de edição máxima para um par ser considerado próximo, maior que zero
+     */
+    public DictionaryAnalyzer(Dictionary dictionary, int maxDistance) {
+        if (maxDistance <= 0) {
+            throw new IllegalArgumentException("Invalid max distance: " + maxDistance);
+        }
+        this.dictionary = dictionary;
+        this.maxDistance = maxDistance;
+    }
+
+    //compara as palavras das posições [from, to) da ordem por tamanho com todas as seguintes
+    //de tamanho próximo
+    private class PairTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private static final int ROWS = 16;
+
+        private final int from;
+        private final int to;
+        private final ConcurrentLinkedQueue<LongList> results;
+        private final LongAdder compared;
+
+        PairTask(int from, int to, ConcurrentLinkedQueue<LongList> results, LongAdder compared) {
+            this.from = from;
+            this.to = to;
+            this.results = results;
+            this.compared = compared;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from > ROWS) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(
+                        new PairTask(this.from, middle, this.results, this.compared),
+                        new PairTask(middle, this.to, this.results, this.compared));
+                return;
+            }
+            int[][] words = DictionaryAnalyzer.this.codePoints;
+            long[] masks = DictionaryAnalyzer.this.letterMasks;
+            int[] order = DictionaryAnalyzer.this.byLength;
+            int max = DictionaryAnalyzer.this.maxDistance;
+            int maxLetterDiff = max * 2;
+            int[] previous = new int[64];
+            int[] current = new int[64];
+            LongList found = new LongList();
+            long count = 0;
+            for (int p = this.from; p < this.to; p++) {
+                int a = order[p];
+                int[] wa = words[a];
+                long ma = masks[a];
+                for (int q = p + 1; q < order.length; q++) {
+                    int b = order[q];
+                    int[] wb = words[b];
+                    if (wb.length - wa.length > max) {
+                        break;
+                    }
+                    count++;
+                    //cada edição muda no máximo duas letras do conjunto de letras
+                    if (Long.bitCount(ma ^ masks[b]) > maxLetterDiff) {
+                        continue;
+                    }
+                    if (wb.length + 1 > previous.length) {
+                        previous = new int[wb.length + 1];
+                        current = new int[wb.length + 1];
+                    }
+                    if (editDistance(wa, wb, max, previous, current) <= max) {
+                        found.add(a < b ? ((long) a << 32) | b : ((long) b << 32) | a);
+                    }
+                }
+            }
+            this.compared.add(count);
+            if (found.size != 0) {
+                this.results.add(found);
+            }
+        }
+    }
+
+    //union-find
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) {
+            parent[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+
+    /**
+     * Analisa o dicionário
+     * @param pool o pool onde o trabalho é feito
+     * @return o resultado
+     */
+    public Result analyze(ForkJoinPool pool) {
+        long start = System.nanoTime();
+        int n = this.dictionary.getNumberOfWords();
+        String[] lower = new String[n];
+        this.codePoints = new int[n][];
+        this.letterMasks = new long[n];
+        String[] keys = new String[n];
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+            String w = this.dictionary.getWord(i).toLowerCase(Locale.ROOT);
+            lower[i] = w;
+            int[] cps = w.codePoints().toArray();
+            this.codePoints[i] = cps;
+            long mask = 0;
+            for (int c : cps) {
+                mask |= 1L << ((c * 0x9E3779B1) >>> 26);
+            }
+            this.letterMasks[i] = mask;
+            keys[i] = phoneticKey(w);
+        })).join();
+
+        //pares próximos
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            boxed[i] = i;
+        }
+        Arrays.parallelSort(boxed, (o1, o2) -> Integer.compare(this.codePoints[o1].length, this.codePoints[o2].length));
+        this.byLength = new int[n];
+        for (int i = 0; i < n; i++) {
+            this.byLength[i] = boxed[i];
+        }
+        ConcurrentLinkedQueue<LongList> results = new ConcurrentLinkedQueue<>();
+        LongAdder compared = new LongAdder();
+        pool.invoke(new PairTask(0, n, results, compared));
+        int total = 0;
+        for (LongList l : results) {
+            total += l.size;
+        }
+        long[] pairs = new long[total];
+        int offset = 0;
+        for (LongList l : results) {
+            System.arraycopy(l.data, 0, pairs, offset, l.size);
+            offset += l.size;
+        }
+        Arrays.parallelSort(pairs);
+
+        //prefixo único, comparando cada palavra com as vizinhas em ordem alfabética
+        Arrays.parallelSort(boxed, (o1, o2) -> lower[o1].compareTo(lower[o2]));
+        int[] depth = new int[n];
+        List<Integer> prefixes = new ArrayList<>();
+        for (int s = 0; s < n; s++) {
+            String w = lower[boxed[s]];
+            int lcp = 0;
+            if (s > 0) {
+                lcp = commonPrefix(w, lower[boxed[s - 1]]);
+            }
+            if (s + 1 < n) {
+                String next = lower[boxed[s + 1]];
+                int l = commonPrefix(w, next);
+                lcp = Math.max(lcp, l);
+                if (l == w.length()) {
+                    prefixes.add(boxed[s]);
+                }
+            }
+            depth[boxed[s]] = Math.min(lcp + 1, w.length());
+        }
+        int[] prefixOfOther = prefixes.stream().mapToInt(Integer::intValue).sorted().toArray();
+
+        //homófonos
+        Map<String, List<Integer>> byKey = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            byKey.computeIfAbsent(keys[i], k -> new ArrayList<>(1)).add(i);
+        }
+        List<int[]> homophones = new ArrayList<>();
+        for (List<Integer> group : byKey.values()) {
+            if (group.size() > 1) {
+                homophones.add(group.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+        homophones.sort((o1, o2) -> Integer.compare(o1[0], o2[0]));
+
+        //grupos confusos
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        for (long pair : pairs) {
+            union(parent, (int) (pair >>> 32), (int) pair);
+        }
+        for (int[] group : homophones) {
+            for (int i = 1; i < group.length; i++) {
+                union(parent, group[0], group[i]);
+            }
+        }
+        Map<Integer, List<Integer>> byRoot = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            byRoot.computeIfAbsent(find(parent, i), k -> new ArrayList<>(1)).add(i);
+        }
+        List<int[]> clusters = new ArrayList<>();
+        for (List<Integer> group : byRoot.values()) {
+            if (group.size() > 1) {
+                clusters.add(group.stream().mapToInt(Integer::intValue).sorted().toArray());
+            }
+        }
+        clusters.sort((o1, o2) -> o1.length != o2.length ? Integer.compare(o2.length, o1.length) : Integer.compare(o1[0], o2[0]));
+
+        //exclusões: em ordem de índice, uma palavra fica se nenhuma vizinha confusa ficou
+        int[] degree = new int[n + 1];
+        for (long pair : pairs) {
+            degree[(int) (pair >>> 32) + 1]++;
+            degree[(int) pair + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            degree[i + 1] += degree[i];
+        }
+        int[] neighbors = new int[pairs.length * 2];
+        int[] fill = Arrays.copyOf(degree, n);
+        for (long pair : pairs) {
+            int a = (int) (pair >>> 32);
+            int b = (int) pair;
+            neighbors[fill[a]++] = b;
+            neighbors[fill[b]++] = a;
+        }
+        boolean[] kept = new boolean[n];
+        Set<String> keptKeys = new HashSet<>();
+        List<Integer> excluded = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            boolean conflict = keptKeys.contains(keys[i]);
+            for (int e = degree[i]; e < degree[i + 1] && !conflict; e++) {
+                conflict = kept[neighbors[e]];
+            }
+            if (conflict) {
+                excluded.add(i);
+            } else {
+                kept[i] = true;
+                keptKeys.add(keys[i]);
+            }
+        }
+
+        this.codePoints = null;
+        this.letterMasks = null;
+        this.byLength = null;
+
+        return new Result(
+                this.dictionary, this.maxDistance, compared.sum(), pairs,
+                depth, prefixOfOther,
+                homophones.toArray(int[][]::new), clusters.toArray(int[][]::new),
+                excluded.stream().mapToInt(Integer::intValue).toArray(),
+                System.nanoTime() - start, pool.getParallelism());
+    }
+
+    //o tamanho do prefixo em comum de duas strings
+    private static int commonPrefix(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+}
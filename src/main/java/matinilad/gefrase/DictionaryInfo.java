@@ -0,0 +1,225 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Os metadados de um dicionário do registro (id, nome, arquivo e quantidade de palavras),
+ * as palavras só são carregadas quando o dicionário é usado pela primeira vez.
+ * O arquivo pode ser um recurso ao lado da classe {@link Dictionary} ou um arquivo da pasta
+ * de dicionários do usuário ({@link UserDictionaries})
+ *
+ * @author Cien
+ */
+public class DictionaryInfo {
+
+    private final String id;
+    private final String name;
+    private final String file;
+    private final Path path;
+    //tamanho e data de modificação do arquivo do usuário quando ele foi encontrado
+    private final long fileSize;
+    private final long fileLastModified;
+    private final int numberOfWords;
+
+    //o dicionário carregado, null até o primeiro uso
+    private volatile Dictionary dictionary = null;
+
+    /**
+     * Cria os metadados de um dicionário
+     *
+     * @param id o id do dicionário, não pode ser null
+     * @param name o nome do dicionário, id será utilizado no lugar se for null
+     * @param file o arquivo do dicionário, relativo à classe {@link Dictionary}, não pode ser null
+     * @param numberOfWords a quantidade de palavras declarada, -1 se desconhecida
+     */
+    public DictionaryInfo(String id, String name, String file, int numberOfWords) {
+        this.id = Objects.requireNonNull(id, "id is null");
+        this.name = (name == null ? this.id : name);
+        this.file = Objects.requireNonNull(file, "file is null");
+        this.path = null;
+        this.fileSize = -1;
+        this.fileLastModified = -1;
+        this.numberOfWords = (numberOfWords <= 0 ? -1 : numberOfWords);
+    }
+
+    /**
+     * Cria os metadados de um dicionário do usuário, fora do jar
+     *
+     * @param id o id do dicionário, não pode ser null
+     * @param name o nome do dicionário, id será utilizado no lugar se for null
+     * @param path o arquivo do dicionário, não pode ser null
+     * @param fileSize o tamanho do arquivo quando ele foi encontrado
+     * @param fileLastModified a data de modificação do arquivo em milissegundos quando ele foi encontrado
+     * @param numberOfWords a quantidade de palavras conhecida (do cache), -1 se desconhecida
+     */
+    public DictionaryInfo(String id, String name, Path path, long fileSize, long fileLastModified, int numberOfWords) {
+        this.id = Objects.requireNonNull(id, "id is null");
+        this.name = (name == null ? this.id : name);
+        this.path = Objects.requireNonNull(path, "path is null");
+        this.file = path.toString();
+        this.fileSize = fileSize;
+        this.fileLastModified = fileLastModified;
+        this.numberOfWords = (numberOfWords <= 0 ? -1 : numberOfWords);
+    }
+
+    /**
+     * Retorna o id do dicionário
+     *
+     * @return o id do dicionário, nunca null
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Retorna o nome do dicionário
+     *
+     * @return o nome do dicionário, nunca null
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Retorna o arquivo do dicionário
+     *
+     * @return o arquivo do dicionário, nunca null
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Retorna o caminho do arquivo se for um dicionário do usuário
+     *
+     * @return o caminho do arquivo ou null se for um recurso dentro do jar
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Retorna se o arquivo do usuário ainda tem o mesmo tamanho e data de modificação de
+     * quando ele foi encontrado
+     *
+     * @param size o tamanho atual do arquivo
+     * @param lastModified a data de modificação atual do arquivo em milissegundos
+     * @return true se for um dicionário do usuário e o arquivo não mudou
+     */
+    public boolean isSameFile(long size, long lastModified) {
+        return this.path != null && this.fileSize == size && this.fileLastModified == lastModified;
+    }
+
+    /**
+     * Retorna a quantidade de palavras declarada no registro, sem carregar o dicionário
+     *
+     * @return a quantidade de palavras ou -1 se não foi declarada
+     */
+    public int getNumberOfWords() {
+        return numberOfWords;
+    }
+
+    /**
+     * Retorna se as palavras do dicionário já foram carregadas
+     *
+     * @return se o dicionário já foi carregado
+     */
+    public boolean isLoaded() {
+        return this.dictionary != null;
+    }
+
+    //lê as palavras do arquivo
+    private Dictionary load() throws IOException {
+        if (this.path != null) {
+            //a quantidade do cache é só uma dica, o arquivo pode ter mudado depois
+            return new Dictionary(this.id, this.name, UserDictionaries.open(this.path));
+        }
+        InputStream in = Dictionary.class.getResourceAsStream(this.file);
+        if (in == null) {
+            throw new IOException("Dictionary file '" + this.file + "' not found for " + this.id);
+        }
+        WordStorage storage;
+        try (in) {
+            storage = Dictionary.readWordStorage(in, this.file);
+        }
+        if (this.numberOfWords != -1 && storage.getNumberOfWords() != this.numberOfWords) {
+            throw new IOException("Dictionary " + this.id + " declares " + this.numberOfWords
+                    + " words but file '" + this.file + "' has " + storage.getNumberOfWords());
+        }
+        return new Dictionary(this.id, this.name, storage);
+    }
+
+    /**
+     * Retorna o dicionário, carregando as palavras no primeiro uso (thread-safe)
+     *
+     * @return o dicionário
+     * @throws UncheckedIOException se o arquivo do dicionário não puder ser lido ou for inválido
+     */
+    public Dictionary getDictionary() {
+        Dictionary d = this.dictionary;
+        if (d == null) {
+            synchronized (this) {
+                d = this.dictionary;
+                if (d == null) {
+                    try {
+                        d = load();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    this.dictionary = d;
+                }
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Retorna uma string para exibição do dicionário para o usuário final,
+     * no mesmo formato de {@link Dictionary#toString()} se a quantidade de palavras for conhecida
+     *
+     * @return uma string para exibição
+     */
+    @Override
+    public String toString() {
+        Dictionary d = this.dictionary;
+        if (d != null) {
+            return d.toString();
+        }
+        if (this.numberOfWords == -1) {
+            return getName();
+        }
+        float bits = (float) (Math.log(this.numberOfWords) / Math.log(2.0));
+        return this.numberOfWords + "p/" + String.format("%.2f", bits) + "b " + getName();
+    }
+
+}
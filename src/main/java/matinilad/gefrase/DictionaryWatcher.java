@@ -0,0 +1,150 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Observa a pasta de dicionários do usuário com um {@link WatchService} e recarrega o registro
+ * de dicionários ({@link Dictionary#reloadUserDictionaries()}) quando um arquivo de dicionário
+ * é criado, modificado ou apagado, sem precisar reiniciar o programa
+ * <p>
+ * Roda em uma thread daemon, eventos em sequência (como a cópia de um arquivo grande) são
+ * agrupados esperando {@link #QUIET_PERIOD} milissegundos sem eventos antes de recarregar.
+ * @author Cien
+ */
+public class DictionaryWatcher {
+
+    /**
+     * Quanto tempo sem eventos na pasta antes de recarregar, em milissegundos
+     */
+    public static final long QUIET_PERIOD = 500;
+
+    //a thread do watcher, null se não foi iniciado
+    private static Thread thread = null;
+
+    /**
+     * Inicia o watcher se ainda não foi iniciado, criando a pasta de dicionários do usuário
+     * se ela não existir
+     * @return true se o watcher está rodando
+     */
+    public static synchronized boolean start() {
+        if (thread != null) {
+            return true;
+        }
+        Path directory = UserDictionaries.getDirectory();
+        WatchService service;
+        try {
+            Files.createDirectories(directory);
+            service = directory.getFileSystem().newWatchService();
+            directory.register(service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException ex) {
+            ex.printStackTrace();
+            return false;
+        }
+        thread = new Thread(() -> run(service), "Dictionary Watcher");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return true;
+    }
+
+    //se algum evento é de um arquivo de dicionário (mudanças no .cache são ignoradas)
+    private static boolean isRelevant(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+                continue;
+            }
+            Object context = event.context();
+            if (context instanceof Path p && !p.toString().equals(UserDictionaries.CACHE_DIRECTORY_NAME)) {
+                relevant = true;
+            }
+        }
+        return relevant;
+    }
+
+    //espera os eventos e recarrega o registro
+    private static void run(WatchService service) {
+        try (service) {
+            //algo pode ter mudado entre a inicialização do Dictionary e o registro do watcher
+            reload();
+            while (true) {
+                WatchKey key = service.take();
+                boolean reload = isRelevant(key);
+                if (!key.reset()) {
+                    //a pasta foi apagada
+                    reload();
+                    break;
+                }
+                if (!reload) {
+                    continue;
+                }
+                //espera a pasta ficar quieta
+                WatchKey next;
+                while ((next = service.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS)) != null) {
+                    next.pollEvents();
+                    next.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            //encerrado
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        } finally {
+            synchronized (DictionaryWatcher.class) {
+                thread = null;
+            }
+        }
+    }
+
+    //recarrega o registro, um erro inesperado não encerra o watcher
+    private static void reload() {
+        try {
+            Dictionary.reloadUserDictionaries();
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private DictionaryWatcher() {
+
+    }
+}
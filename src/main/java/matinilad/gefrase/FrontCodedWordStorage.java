@@ -0,0 +1,366 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Armazenamento de palavras comprimido com front coding (prefixos compartilhados),
+ * para dicionários embutidos no jar.<br>
+ * <br>
+ * As palavras são divididas em blocos de {@link #BLOCK_SIZE} palavras, a primeira
+ * palavra de cada bloco é guardada inteira e as outras guardam só quantos bytes
+ * compartilham com a palavra anterior e o resto, então uma palavra é decodificada
+ * lendo no máximo um bloco, com acesso aleatório pelo índice. Cada bloco é decodificado
+ * no primeiro uso de uma palavra dele e guardado, os blocos nunca usados continuam
+ * só comprimidos. A compressão é melhor
+ * com as palavras em ordem alfabética, mas a ordem (e os índices) nunca são alterados.<br>
+ * <br>
+ * O formato (big endian) é:<br>
+ * magic "GFFC" (4 bytes), versão (int), quantidade de palavras (int),
+ * tamanho da maior palavra em bytes (int), hash SHA-256 do conteúdo (32 bytes),
+ * tamanho do bloco (int), offsets dos blocos (quantidade de blocos + 1 ints) e os blocos.<br>
+ * Cada bloco é: tamanho da primeira palavra (varint) e os bytes dela, e para cada uma das
+ * outras palavras: bytes compartilhados (varint), tamanho do resto (varint) e os bytes do resto.<br>
+ * <br>
+ * O hash do conteúdo é o mesmo de {@link BinaryWordStorage#calculateContentHash(WordStorage)}.
+ *
+ * @author Cien
+ */
+public class FrontCodedWordStorage implements WordStorage {
+
+    //o magic do formato
+    public static final byte[] MAGIC = {'G', 'F', 'F', 'C'};
+    //a versão do formato
+    public static final int VERSION = 1;
+    //o tamanho do cabeçalho
+    public static final int HEADER_SIZE = MAGIC.length + 4 + 4 + 4 + 32 + 4;
+    //a quantidade de palavras por bloco (potência de dois)
+    public static final int BLOCK_SIZE = 16;
+    //a extensão dos arquivos
+    public static final String EXTENSION = ".gfc";
+
+    /**
+     * Verifica se os primeiros bytes de um arquivo são de um dicionário comprimido
+     *
+     * @param header os primeiros bytes do arquivo
+     * @param length quantos bytes foram lidos
+     * @return se é um dicionário comprimido
+     */
+    public static boolean isFrontCoded(byte[] header, int length) {
+        return length >= MAGIC.length
+                && Arrays.equals(header, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    //escreve um varint (7 bits por byte, o bit mais alto indica que tem mais bytes)
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Escreve um armazenamento de palavras no formato comprimido
+     *
+     * @param storage o armazenamento
+     * @param out o canal de saída
+     * @throws IOException se acontecer algum erro de escrita
+     */
+    public static void write(WordStorage storage, WritableByteChannel out) throws IOException {
+        int count = storage.getNumberOfWords();
+        int blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[] blockOffsets = new int[blocks + 1];
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        ByteBuffer previous = ByteBuffer.allocate(storage.getMaxWordByteLength());
+        ByteBuffer current = ByteBuffer.allocate(storage.getMaxWordByteLength());
+        for (int i = 0; i < count; i++) {
+            current.clear();
+            storage.writeWord(i, false, current);
+            int length = current.position();
+            if ((i % BLOCK_SIZE) == 0) {
+                blockOffsets[i / BLOCK_SIZE] = data.size();
+                writeVarInt(data, length);
+                data.write(current.array(), 0, length);
+            } else {
+                int shared = Arrays.mismatch(
+                        previous.array(), 0, previous.position(),
+                        current.array(), 0, length);
+                if (shared < 0) {
+                    shared = length;
+                }
+                writeVarInt(data, shared);
+                writeVarInt(data, length - shared);
+                data.write(current.array(), shared, length - shared);
+            }
+            ByteBuffer swap = previous;
+            previous = current;
+            current = swap;
+        }
+        blockOffsets[blocks] = data.size();
+
+        long fileSize = HEADER_SIZE + ((blocks + 1L) * Integer.BYTES) + data.size();
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Dictionary is too large: " + fileSize + " bytes");
+        }
+        ByteBuffer file = ByteBuffer.allocate((int) fileSize);
+        file.put(MAGIC);
+        file.putInt(VERSION);
+        file.putInt(count);
+        file.putInt(storage.getMaxWordByteLength());
+        file.put(BinaryWordStorage.calculateContentHash(storage));
+        file.putInt(BLOCK_SIZE);
+        for (int offset : blockOffsets) {
+            file.putInt(offset);
+        }
+        file.put(data.toByteArray());
+
+        file.flip();
+        while (file.hasRemaining()) {
+            out.write(file);
+        }
+    }
+
+    /**
+     * Lê um dicionário comprimido de um stream, os blocos só são decodificados quando usados
+     *
+     * @param in o stream
+     * @param source o nome do arquivo, para as mensagens de erro
+     * @return o armazenamento de palavras do stream
+     * @throws IOException se o stream não puder ser lido ou não for um dicionário comprimido válido
+     */
+    public static FrontCodedWordStorage read(InputStream in, String source) throws IOException {
+        return new FrontCodedWordStorage(ByteBuffer.wrap(in.readAllBytes()), source);
+    }
+
+    //o arquivo inteiro
+    private final ByteBuffer buffer;
+    //a quantidade de palavras
+    private final int count;
+    //o tamanho da maior palavra em bytes
+    private final int maxWordByteLength;
+    //o hash do conteúdo
+    private final byte[] contentHash;
+    //o tamanho dos blocos (potência de dois) e o shift equivalente
+    private final int blockSize;
+    private final int blockShift;
+    //onde começam os offsets dos blocos e os blocos
+    private final int offsetsStart;
+    private final int dataStart;
+
+    //os blocos já decodificados, null até o primeiro uso de uma palavra do bloco
+    private final AtomicReferenceArray<DecodedBlock> decodedBlocks;
+
+    //um bloco decodificado, as palavras em sequência e os offsets delas
+    private static class DecodedBlock {
+
+        final byte[] data;
+        final int[] offsets;
+
+        DecodedBlock(byte[] data, int[] offsets) {
+            this.data = data;
+            this.offsets = offsets;
+        }
+    }
+
+    /**
+     * Cria um armazenamento a partir dos bytes de um dicionário comprimido, só o cabeçalho
+     * é validado, os blocos não são lidos
+     *
+     * @param buffer os bytes do dicionário comprimido
+     * @param source o nome do arquivo, para as mensagens de erro
+     * @throws IOException se não for um dicionário comprimido válido
+     */
+    public FrontCodedWordStorage(ByteBuffer buffer, String source) throws IOException {
+        this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (this.buffer.capacity() < HEADER_SIZE) {
+            throw new IOException("File '" + source + "' is too small to be a compressed dictionary");
+        }
+        byte[] magic = new byte[MAGIC.length];
+        this.buffer.get(0, magic);
+        if (!isFrontCoded(magic, magic.length)) {
+            throw new IOException("File '" + source + "' is not a compressed dictionary");
+        }
+        int version = this.buffer.getInt(MAGIC.length);
+        if (version != VERSION) {
+            throw new IOException("Unsupported compressed dictionary version " + version + " in file '" + source + "'");
+        }
+        this.count = this.buffer.getInt(MAGIC.length + 4);
+        this.maxWordByteLength = this.buffer.getInt(MAGIC.length + 8);
+        this.contentHash = new byte[32];
+        this.buffer.get(MAGIC.length + 12, this.contentHash);
+        this.blockSize = this.buffer.getInt(MAGIC.length + 44);
+        if (this.count <= 0 || this.blockSize <= 0 || this.maxWordByteLength <= 0
+                || Integer.bitCount(this.blockSize) != 1) {
+            throw new IOException("Compressed dictionary '" + source + "' is empty or corrupted");
+        }
+        this.blockShift = Integer.numberOfTrailingZeros(this.blockSize);
+        int blocks = (int) ((this.count + (long) this.blockSize - 1) / this.blockSize);
+        this.offsetsStart = HEADER_SIZE;
+        long data = HEADER_SIZE + ((blocks + 1L) * Integer.BYTES);
+        if (data > this.buffer.capacity()
+                || data + this.buffer.getInt((int) data - Integer.BYTES) != this.buffer.capacity()) {
+            throw new IOException("Compressed dictionary '" + source + "' is truncated or corrupted");
+        }
+        this.dataStart = (int) data;
+        this.decodedBlocks = new AtomicReferenceArray<>(blocks);
+    }
+
+    /**
+     * Retorna uma cópia do hash SHA-256 do conteúdo guardado no cabeçalho
+     *
+     * @return o hash do conteúdo
+     */
+    public byte[] getContentHash() {
+        return contentHash.clone();
+    }
+
+    /**
+     * Recalcula o hash do conteúdo e compara com o do cabeçalho, decodificando todas as palavras
+     *
+     * @return se o conteúdo está íntegro
+     */
+    public boolean verifyContentHash() {
+        return Arrays.equals(BinaryWordStorage.calculateContentHash(this), this.contentHash);
+    }
+
+    //lê um varint na posição fornecida, guarda a próxima posição em position[0]
+    private int readVarInt(int[] position) {
+        int p = position[0];
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = this.buffer.get(p++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        position[0] = p;
+        return value;
+    }
+
+    //decodifica todas as palavras de um bloco
+    private DecodedBlock decodeBlock(int block) {
+        int first = block * this.blockSize;
+        int words = Math.min(this.blockSize, this.count - first);
+        int[] position = {this.dataStart + this.buffer.getInt(this.offsetsStart + (block * Integer.BYTES))};
+
+        byte[] word = new byte[this.maxWordByteLength];
+        byte[] data = new byte[this.maxWordByteLength * words];
+        int[] offsets = new int[words + 1];
+        int length = 0;
+        for (int i = 0; i < words; i++) {
+            int shared = (i == 0 ? 0 : readVarInt(position));
+            int rest = readVarInt(position);
+            this.buffer.get(position[0], word, shared, rest);
+            position[0] += rest;
+            length = shared + rest;
+
+            System.arraycopy(word, 0, data, offsets[i], length);
+            offsets[i + 1] = offsets[i] + length;
+        }
+        return new DecodedBlock(Arrays.copyOf(data, offsets[words]), offsets);
+    }
+
+    //retorna o bloco decodificado de uma palavra, decodificando no primeiro uso
+    private DecodedBlock block(int index) {
+        int block = Objects.checkIndex(index, this.count) >>> this.blockShift;
+        DecodedBlock decoded = this.decodedBlocks.get(block);
+        if (decoded == null) {
+            //duas threads podem decodificar o mesmo bloco, o resultado é igual
+            decoded = decodeBlock(block);
+            this.decodedBlocks.lazySet(block, decoded);
+        }
+        return decoded;
+    }
+
+    /**
+     * Retorna quantos blocos já foram decodificados
+     *
+     * @return quantos blocos já foram decodificados
+     */
+    public int getNumberOfDecodedBlocks() {
+        int decoded = 0;
+        for (int i = 0; i < this.decodedBlocks.length(); i++) {
+            if (this.decodedBlocks.get(i) != null) {
+                decoded++;
+            }
+        }
+        return decoded;
+    }
+
+    @Override
+    public int getNumberOfWords() {
+        return this.count;
+    }
+
+    @Override
+    public String getWord(int index) {
+        DecodedBlock decoded = block(index);
+        int i = index & (this.blockSize - 1);
+        int start = decoded.offsets[i];
+        return new String(decoded.data, start, decoded.offsets[i + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void writeWord(int index, boolean capitalized, ByteBuffer out) {
+        DecodedBlock decoded = block(index);
+        int i = index & (this.blockSize - 1);
+        int start = decoded.offsets[i];
+        int end = decoded.offsets[i + 1];
+        if (capitalized) {
+            byte lead = decoded.data[start];
+            if (lead >= 'a' && lead <= 'z') {
+                out.put((byte) (lead - 0x20));
+                start++;
+            } else if (lead < 0) {
+                //letras fora do ascii, raro o suficiente para usar String
+                String s = new String(decoded.data, start, end - start, StandardCharsets.UTF_8);
+                out.put(Dictionary.capitalize(s).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+        out.put(decoded.data, start, end - start);
+    }
+
+    @Override
+    public int getMaxWordByteLength() {
+        return maxWordByteLength;
+    }
+
+}
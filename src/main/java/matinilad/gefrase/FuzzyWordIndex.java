@@ -0,0 +1,245 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.util.Arrays;
+
+/**
+ * Índice para pesquisa aproximada das palavras de um dicionário (palavras com uma ou duas letras
+ * erradas, faltando ou sobrando)
+ * <p>
+ * As palavras normalizadas ficam na ordem do {@link SortedWordIndex} em um único array de char,
+ * o que forma uma árvore de prefixos implícita: palavras seguidas dividem o começo. A pesquisa
+ * percorre essa ordem calculando uma linha da distância de edição por caractere (como um autômato
+ * de Levenshtein), reaproveitando as linhas do prefixo em comum com a palavra anterior, e quando
+ * nenhuma célula de uma linha está dentro da distância máxima todas as palavras com aquele
+ * prefixo são puladas de uma vez por busca binária.
+ * @author Cien
+ */
+public class FuzzyWordIndex {
+
+    /**
+     * A maior distância de edição suportada na pesquisa
+     */
+    public static final int MAX_DISTANCE = 2;
+
+    /**
+     * Retorna a distância máxima adequada para uma pesquisa, pesquisas curtas aceitam menos erros
+     * para não retornarem metade do dicionário
+     * @param query a pesquisa
+     * @return a distância máxima, 0 se a pesquisa for curta demais para uma pesquisa aproximada
+     */
+    public static int getMaxDistanceFor(String query) {
+        int length = query.length();
+        if (length < 3) {
+            return 0;
+        }
+        if (length < 5) {
+            return 1;
+        }
+        return MAX_DISTANCE;
+    }
+
+    //o índice em ordem alfabética
+    private final SortedWordIndex sortedIndex;
+
+    //todas as palavras normalizadas em ordem alfabética, uma depois da outra
+    private final char[] characters;
+    //onde cada palavra começa em characters (a posição i vai de offsets[i] até offsets[i + 1])
+    private final int[] offsets;
+    //o tamanho da maior palavra
+    private final int maxLength;
+
+    /**
+     * Cria o índice de pesquisa aproximada de um índice em ordem alfabética
+     * @param sortedIndex o índice em ordem alfabética
+     */
+    public FuzzyWordIndex(SortedWordIndex sortedIndex) {
+        this.sortedIndex = sortedIndex;
+        Dictionary dictionary = sortedIndex.getDictionary();
+        int n = sortedIndex.size();
+
+        this.offsets = new int[n + 1];
+        char[] chars = new char[n * 8];
+        int max = 0;
+        for (int i = 0; i < n; i++) {
+            String word = SortedWordIndex.normalize(dictionary.getWord(sortedIndex.getWordIndex(i)));
+            int offset = this.offsets[i];
+            if (offset + word.length() > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, offset + word.length()));
+            }
+            word.getChars(0, word.length(), chars, offset);
+            this.offsets[i + 1] = offset + word.length();
+            max = Math.max(max, word.length());
+        }
+        this.characters = Arrays.copyOf(chars, this.offsets[n]);
+        this.maxLength = max;
+    }
+
+    /**
+     * Retorna o índice em ordem alfabética usado por este índice
+     * @return o índice em ordem alfabética
+     */
+    public SortedWordIndex getSortedIndex() {
+        return sortedIndex;
+    }
+
+    //o tamanho do prefixo em comum de duas posições, até no máximo limit
+    private int commonPrefix(int a, int b, int limit) {
+        int aStart = this.offsets[a];
+        int bStart = this.offsets[b];
+        int length = Math.min(limit, Math.min(this.offsets[a + 1] - aStart, this.offsets[b + 1] - bStart));
+        int i = 0;
+        while (i < length && this.characters[aStart + i] == this.characters[bStart + i]) {
+            i++;
+        }
+        return i;
+    }
+
+    //a primeira posição depois de from que não começa com os length primeiros caracteres de from
+    private int prefixEnd(int from, int length) {
+        int low = from + 1;
+        int high = this.offsets.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (commonPrefix(from, middle, length) == length) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Procura as palavras com distância de edição até maxDistance da pesquisa (até
+     * {@link #MAX_DISTANCE} letras erradas, faltando ou sobrando), da mais próxima para a mais
+     * distante e em ordem alfabética na mesma distância
+     * @param query a pesquisa, já normalizada
+     * @param maxDistance a distância máxima, de 0 até {@link #MAX_DISTANCE}
+     * @return as posições (no {@link SortedWordIndex}) das palavras
+     */
+    public int[] find(String query, int maxDistance) {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("Max distance must be between 0 and " + MAX_DISTANCE);
+        }
+        int n = this.offsets.length - 1;
+        int m = query.length();
+
+        //rows[d] é a linha da distância de edição para os d primeiros caracteres da palavra atual
+        int depth = Math.min(this.maxLength, m + maxDistance);
+        int[][] rows = new int[depth + 1][m + 1];
+        for (int j = 0; j <= m; j++) {
+            rows[0][j] = j;
+        }
+
+        //as posições encontradas, separadas por distância
+        int[][] found = new int[maxDistance + 1][16];
+        int[] foundSizes = new int[maxDistance + 1];
+
+        //quantas linhas de rows valem para a palavra anterior
+        int valid = 0;
+        int previous = -1;
+        int position = 0;
+        while (position < n) {
+            int start = this.offsets[position];
+            int length = this.offsets[position + 1] - start;
+            int computed = (previous == -1 ? 0 : commonPrefix(previous, position, valid));
+
+            //calcula as linhas que faltam, parando se nenhuma célula estiver dentro da distância
+            boolean pruned = false;
+            int limit = Math.min(length, depth);
+            while (computed < limit) {
+                int[] above = rows[computed];
+                int[] row = rows[computed + 1];
+                char c = this.characters[start + computed];
+                int i = computed + 1;
+                //só as células perto da diagonal podem estar dentro da distância,
+                //as vizinhas da faixa recebem maxDistance + 1
+                int from = Math.max(1, i - maxDistance);
+                int to = Math.min(m, i + maxDistance);
+                row[0] = i;
+                if (from > 1) {
+                    row[from - 1] = maxDistance + 1;
+                }
+                if (to < m) {
+                    row[to + 1] = maxDistance + 1;
+                }
+                int rowMin = (i <= maxDistance ? i : maxDistance + 1);
+                for (int j = from; j <= to; j++) {
+                    int cost = (c == query.charAt(j - 1) ? 0 : 1);
+                    int v = Math.min(Math.min(above[j] + 1, row[j - 1] + 1), above[j - 1] + cost);
+                    row[j] = v;
+                    if (v < rowMin) {
+                        rowMin = v;
+                    }
+                }
+                computed++;
+                if (rowMin > maxDistance) {
+                    pruned = true;
+                    break;
+                }
+            }
+            if (!pruned && length > depth) {
+                //mais longa que a pesquisa + a distância máxima, nunca está dentro da distância
+                pruned = true;
+                computed = depth + 1;
+            }
+
+            previous = position;
+            if (pruned) {
+                //todas as palavras com esse prefixo estão fora da distância
+                valid = computed - 1;
+                position = prefixEnd(position, computed);
+                continue;
+            }
+
+            valid = computed;
+            int d = rows[length][m];
+            if (Math.abs(length - m) <= maxDistance && d <= maxDistance) {
+                if (foundSizes[d] == found[d].length) {
+                    found[d] = Arrays.copyOf(found[d], foundSizes[d] * 2);
+                }
+                found[d][foundSizes[d]++] = position;
+            }
+            position++;
+        }
+
+        int total = 0;
+        for (int size : foundSizes) {
+            total += size;
+        }
+        int[] result = new int[total];
+        int offset = 0;
+        for (int d = 0; d <= maxDistance; d++) {
+            System.arraycopy(found[d], 0, result, offset, foundSizes[d]);
+            offset += foundSizes[d];
+        }
+        return result;
+    }
+
+}
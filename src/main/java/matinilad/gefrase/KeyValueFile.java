@@ -0,0 +1,174 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Lê e escreve arquivos de configuração no formato chave=valor em UTF-8, usado no lugar do xml
+ * do Properties para não carregar o parser de xml na inicialização do programa
+ * <p>
+ * Cada linha tem uma chave e um valor separados pelo primeiro '=', espaços ao redor da chave
+ * são ignorados mas o valor é lido exatamente como está. Linhas vazias e linhas começando com
+ * '#' são ignoradas. Dentro da chave e do valor '\' escapa o próximo caractere:
+ * \n, \r e \t são a quebra de linha, o retorno e o tab, \\ é a barra e \= é o igual.
+ * @author Cien
+ */
+public class KeyValueFile {
+
+    /**
+     * A extensão dos arquivos de configuração
+     */
+    public static final String EXTENSION = ".cfg";
+
+    /**
+     * Lê um arquivo chave=valor para dentro das propriedades, substituindo as chaves que já
+     * existirem
+     * @param in o stream do arquivo, não é fechado
+     * @param properties as propriedades de saída
+     * @param source o nome do arquivo, para as mensagens de erro
+     * @throws IOException se acontecer algum erro de leitura ou se uma linha for inválida
+     */
+    public static void read(InputStream in, Properties properties, String source) throws IOException {
+        String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        //ignora o BOM se o arquivo tiver sido salvo por um editor que adiciona ele
+        int index = (!text.isEmpty() && text.charAt(0) == '\uFEFF' ? 1 : 0);
+        int lineNumber = 0;
+        StringBuilder b = new StringBuilder();
+        while (index < text.length()) {
+            int end = text.indexOf('\n', index);
+            if (end == -1) {
+                end = text.length();
+            }
+            lineNumber++;
+            parseLine(text, index, end, lineNumber, b, properties, source);
+            index = end + 1;
+        }
+    }
+
+    //lê uma linha de start até end (sem o \n)
+    private static void parseLine(
+            String text, int start, int end, int lineNumber,
+            StringBuilder b, Properties properties, String source
+    ) throws IOException {
+        if (end > start && text.charAt(end - 1) == '\r') {
+            end--;
+        }
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        if (start == end || text.charAt(start) == '#') {
+            return;
+        }
+
+        b.setLength(0);
+        String key = null;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '\\') {
+                i++;
+                if (i == end) {
+                    throw new IOException("Incomplete escape at line "+lineNumber+" of "+source);
+                }
+                c = text.charAt(i);
+                switch (c) {
+                    case 'n' -> b.append('\n');
+                    case 'r' -> b.append('\r');
+                    case 't' -> b.append('\t');
+                    case '\\', '=', '#' -> b.append(c);
+                    default -> throw new IOException("Invalid escape \\"+c+" at line "+lineNumber+" of "+source);
+                }
+                continue;
+            }
+            if (c == '=' && key == null) {
+                key = b.toString().strip();
+                b.setLength(0);
+                continue;
+            }
+            b.append(c);
+        }
+        if (key == null) {
+            throw new IOException("Missing '=' at line "+lineNumber+" of "+source);
+        }
+        if (key.isEmpty()) {
+            throw new IOException("Empty key at line "+lineNumber+" of "+source);
+        }
+        properties.setProperty(key, b.toString());
+    }
+
+    //escapa os caracteres especiais de uma chave ou valor
+    private static void escape(String s, boolean key, StringBuilder b) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\n' -> b.append("\\n");
+                case '\r' -> b.append("\\r");
+                case '\t' -> b.append("\\t");
+                case '\\' -> b.append("\\\\");
+                case '=' -> b.append(key ? "\\=" : "=");
+                case '#' -> b.append(key && i == 0 ? "\\#" : "#");
+                default -> b.append(c);
+            }
+        }
+    }
+
+    /**
+     * Escreve as propriedades (sem as padrões) no formato chave=valor em UTF-8, com as chaves
+     * em ordem alfabética
+     * @param properties as propriedades
+     * @param out o stream de saída, não é fechado
+     * @throws IOException se acontecer algum erro de escrita
+     */
+    public static void write(Properties properties, OutputStream out) throws IOException {
+        List<String> keys = new ArrayList<>();
+        for (Object key : properties.keySet()) {
+            keys.add(key.toString());
+        }
+        Collections.sort(keys);
+
+        StringBuilder b = new StringBuilder();
+        for (String key : keys) {
+            escape(key, true, b);
+            b.append('=');
+            escape(String.valueOf(properties.get(key)), false, b);
+            b.append('\n');
+        }
+        out.write(b.toString().getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private KeyValueFile() {
+
+    }
+}
@@ -29,12 +29,25 @@ package matinilad.gefrase;
 import com.formdev.flatlaf.FlatDarkLaf;
 import com.formdev.flatlaf.util.SystemInfo;
 import java.awt.EventQueue;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.DrbgParameters;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 
@@ -56,6 +69,207 @@ public class Main {
         return Main.portableMode;
     }
     
+    /**
+     * Cria o CSPRNG usado pelo programa
+     *
+     * @param seed a seed inicial, null para deixar o DRBG se alimentar sozinho
+     * @return o CSPRNG
+     */
+    public static SecureRandom createRandom(byte[] seed) {
+        try {
+            SecureRandom random = SecureRandom.getInstance("DRBG",
+                    DrbgParameters.instantiation(256,
+                            DrbgParameters.Capability.RESEED_ONLY,
+                            null));
+            if (seed != null) {
+                random.setSeed(seed);
+            }
+            return random;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+    
+    //retorna o valor de um argumento (ex: -out arquivo.txt) ou null se não houver
+    private static String getArgumentValue(String[] args, String name) {
+        return getArgumentValue(args, name, 1);
+    }
+    
+    //retorna o valor na posição indicada depois de uma opção (1 é o primeiro valor),
+    //null se a opção não existir
+    private static String getArgumentValue(String[] args, String name, int position) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase(name)) {
+                if ((i + position) >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + name);
+                }
+                return args[i + position];
+            }
+        }
+        return null;
+    }
+    
+    //lê as configurações de geração de senha salvas pela janela principal
+    private static PasswordSettings readPasswordSettings(Properties properties) {
+        return new PasswordSettings(
+                Integer.parseInt(properties.getProperty(MainWindow.PROPERTY_NUMBER_OF_WORDS)),
+                (char) Integer.parseInt(properties.getProperty(MainWindow.PROPERTY_SEPARATOR_CHARACTER)),
+                Integer.parseInt(properties.getProperty(MainWindow.PROPERTY_CAPITALIZATION_MODE)),
+                Boolean.parseBoolean(properties.getProperty(MainWindow.PROPERTY_USE_RANDOM_SUFFIX)),
+                properties.getProperty(MainWindow.PROPERTY_SUFFIX)
+        );
+    }
+    
+    //modo de linha de comando: gera várias senhas para um arquivo ou stdout
+    //ex: -generate 50000000 -out senhas.txt -threads 8
+    private static void generate(String[] args) throws IOException {
+        long count = Long.parseLong(getArgumentValue(args, "-generate"));
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid number of passwords: " + count);
+        }
+        String out = getArgumentValue(args, "-out");
+        String threadsValue = getArgumentValue(args, "-threads");
+        int threads = (threadsValue == null ? 1 : Integer.parseInt(threadsValue));
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        
+        Configuration config = new Configuration("application");
+        Properties properties = config.getProperties();
+        Dictionary dictionary;
+        String dictionaryFile = getArgumentValue(args, "-dictionary");
+        if (dictionaryFile != null) {
+            Path file = Path.of(dictionaryFile);
+            dictionary = new Dictionary(file.getFileName().toString(), null, Dictionary.openWordStorage(file));
+        } else {
+            dictionary = Dictionary.getDictionary(properties.getProperty(MainWindow.PROPERTY_DICTIONARY));
+        }
+        if (dictionary == null) {
+            throw new IOException("Dictionary not found: " + properties.getProperty(MainWindow.PROPERTY_DICTIONARY));
+        }
+        
+        PasswordGenerator generator = new PasswordGenerator(
+                readPasswordSettings(properties), dictionary, createRandom(null));
+        
+        if (out == null) {
+            FileChannel channel = new FileOutputStream(FileDescriptor.out).getChannel();
+            new PasswordWriter(generator, channel).write(count, threads);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(Path.of(out),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            new PasswordWriter(generator, channel).write(count, threads);
+        }
+    }
+    
+    //modo de linha de comando: compila um dicionário em texto para o formato binário
+    //ou para o formato comprimido se a saída terminar com .gfc
+    //ex: -compileDictionary dict.txt dict.gfdb
+    private static void compileDictionary(String[] args) throws IOException {
+        String input = getArgumentValue(args, "-compileDictionary");
+        Path output = Path.of(getArgumentValue(args, "-compileDictionary", 2));
+        
+        long start = System.nanoTime();
+        WordStorage storage = Dictionary.compile(Path.of(input), output);
+        long elapsed = System.nanoTime() - start;
+        System.out.println("Compiled " + storage.getNumberOfWords() + " words to " + output
+                + " (" + Files.size(output) + " bytes) in " + String.format("%.1f", elapsed / 1E6) + " ms");
+        System.out.println("Content hash: "
+                + HexFormat.of().formatHex(BinaryWordStorage.calculateContentHash(storage)));
+        
+        start = System.nanoTime();
+        Dictionary.openWordStorage(output);
+        elapsed = System.nanoTime() - start;
+        System.out.println("Open: " + String.format("%.3f", elapsed / 1E6) + " ms");
+    }
+    
+    //abre um dicionário pelo id do registro ou pelo caminho de um arquivo
+    private static Dictionary openDictionary(String value) throws IOException {
+        if (Dictionary.getDictionaryInfo(value) != null) {
+            return Dictionary.getDictionary(value);
+        }
+        Path file = Path.of(value);
+        return new Dictionary(file.getFileName().toString(), null, Dictionary.openWordStorage(file));
+    }
+    
+    //modo de linha de comando: analisa um dicionário procurando palavras fáceis de confundir
+    //ex: -analyzeDictionary v1 -maxDistance 1 -report relatorio.txt -exclude excluir.txt -threads 8
+    private static void analyzeDictionary(String[] args) throws IOException {
+        Dictionary dictionary = openDictionary(getArgumentValue(args, "-analyzeDictionary"));
+        String maxDistanceValue = getArgumentValue(args, "-maxDistance");
+        int maxDistance = (maxDistanceValue == null ? 1 : Integer.parseInt(maxDistanceValue));
+        String threadsValue = getArgumentValue(args, "-threads");
+        int threads = (threadsValue == null ? 0 : Integer.parseInt(threadsValue));
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        
+        DictionaryAnalyzer.Result result;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            result = new DictionaryAnalyzer(dictionary, maxDistance).analyze(pool);
+        } finally {
+            pool.shutdown();
+        }
+        
+        String report = getArgumentValue(args, "-report");
+        if (report == null) {
+            Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+            result.writeReport(out);
+        } else {
+            try (Writer out = Files.newBufferedWriter(Path.of(report))) {
+                result.writeReport(out);
+            }
+        }
+        String exclude = getArgumentValue(args, "-exclude");
+        if (exclude != null) {
+            try (Writer out = Files.newBufferedWriter(Path.of(exclude))) {
+                result.writeExclusions(out);
+            }
+        }
+    }
+    
+    //retorna o valor inteiro de um argumento ou o padrão se não houver
+    private static int getIntArgument(String[] args, String name, int defaultValue) {
+        String value = getArgumentValue(args, name);
+        return (value == null ? defaultValue : Integer.parseInt(value));
+    }
+    
+    //modo de linha de comando: constrói um dicionário a partir de um texto grande
+    //ex: -buildDictionary corpus.txt palavras.txt -bits 12 -minLength 3 -maxLength 8 -excludeWords palavroes.txt
+    private static void buildDictionary(String[] args) throws IOException {
+        String input = getArgumentValue(args, "-buildDictionary");
+        Path output = Path.of(getArgumentValue(args, "-buildDictionary", 2));
+        boolean keepAccents = List.of(args).stream().anyMatch(a -> a.equalsIgnoreCase("-keepAccents"));
+        
+        CorpusDictionaryBuilder builder = new CorpusDictionaryBuilder(
+                getIntArgument(args, "-bits", 12),
+                getIntArgument(args, "-minLength", 3),
+                getIntArgument(args, "-maxLength", 8),
+                !keepAccents,
+                getIntArgument(args, "-maxDistance", 1),
+                getIntArgument(args, "-minCount", 2),
+                getIntArgument(args, "-maxEntries", 1 << 22)
+        );
+        String excludeWords = getArgumentValue(args, "-excludeWords");
+        if (excludeWords != null) {
+            try (InputStream in = Files.newInputStream(Path.of(excludeWords))) {
+                builder.addExclusions(in);
+            }
+        }
+        
+        long start = System.nanoTime();
+        builder.read(Path.of(input), System.err);
+        WordStorage storage = builder.build();
+        Dictionary.writeWordStorage(storage, output);
+        long elapsed = System.nanoTime() - start;
+        System.out.println(builder.getStatistics());
+        System.out.println("Wrote " + storage.getNumberOfWords() + " words to " + output
+                + " in " + String.format("%.1f", elapsed / 1E9) + " s");
+    }
+    
     /**
      * O ponto de partida do programa, o método main
      *
@@ -68,6 +282,52 @@ public class Main {
             Main.portableMode = true;
         }
         
+        //benchmark do PBKDF2, sem interface gráfica
+        if (arguments.contains("-benchmark")) {
+            Benchmark.run(System.out);
+            return;
+        }
+        
+        //compila um dicionário, sem interface gráfica
+        if (arguments.contains("-compiledictionary")) {
+            try {
+                compileDictionary(args);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return;
+        }
+        
+        //constrói um dicionário a partir de um texto, sem interface gráfica
+        if (arguments.contains("-builddictionary")) {
+            try {
+                buildDictionary(args);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return;
+        }
+        
+        //analisa um dicionário, sem interface gráfica
+        if (arguments.contains("-analyzedictionary")) {
+            try {
+                analyzeDictionary(args);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return;
+        }
+        
+        //modo de linha de comando, sem interface gráfica
+        if (arguments.contains("-generate")) {
+            try {
+                generate(args);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return;
+        }
+        
         //inicializa o FlatDarkLaf
         if (SystemInfo.isLinux) {
             JFrame.setDefaultLookAndFeelDecorated(true);
@@ -89,21 +349,13 @@ public class Main {
             new EntropyCollector() {
                 @Override
                 public void onSeedReady(byte[] seed) {
-                    try {
-                        //inicializa o CSPRNG do java
-                        SecureRandom random = SecureRandom.getInstance("DRBG",
-                                DrbgParameters.instantiation(256,
-                                        DrbgParameters.Capability.RESEED_ONLY,
-                                        null));
-                        random.setSeed(seed);
-                        
-                        //abre a janela principal
-                        MainWindow m = new MainWindow(config, random);
-                        m.setLocationRelativeTo(this);
-                        m.setVisible(true);
-                    } catch (NoSuchAlgorithmException ex) {
-                        throw new RuntimeException(ex);
-                    }
+                    //inicializa o CSPRNG do java
+                    SecureRandom random = createRandom(seed);
+                    
+                    //abre a janela principal
+                    MainWindow m = new MainWindow(config, random);
+                    m.setLocationRelativeTo(this);
+                    m.setVisible(true);
                 }
             }.setVisible(true);
         });
@@ -3,6 +3,7 @@ package matinilad.gefrase;
 import java.awt.Component;
 import java.awt.Toolkit;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -18,6 +19,7 @@ import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JMenu;
 import javax.swing.JOptionPane;
 import javax.swing.JSeparator;
+import javax.swing.SwingUtilities;
 
 /**
  * A janela principal do programa
@@ -71,11 +73,79 @@ public class MainWindow extends javax.swing.JFrame {
     public MainWindow(Configuration config, SecureRandom random) {
         this.random = Objects.requireNonNull(random);
         this.config = Objects.requireNonNull(config);
-        this.dict = Dictionary.getDictionary(
-                this.config.getProperties().getProperty(PROPERTY_DICTIONARY));
+        this.dict = loadConfiguredDictionary();
         initComponents();
 
         this.extraFields = new ExtraFields(this);
+
+        Dictionary.addRegistryListener(() -> SwingUtilities.invokeLater(this::onDictionariesChanged));
+        DictionaryWatcher.start();
+    }
+
+    //carrega o dicionário da configuração, se ele não existir mais ou não puder ser lido
+    //(um dicionário do usuário que foi apagado por exemplo) volta para o dicionário padrão
+    private Dictionary loadConfiguredDictionary() {
+        Properties properties = this.config.getProperties();
+        try {
+            Dictionary d = Dictionary.getDictionary(properties.getProperty(PROPERTY_DICTIONARY));
+            if (d != null) {
+                return d;
+            }
+        } catch (UncheckedIOException ex) {
+            ex.printStackTrace();
+        }
+        properties.remove(PROPERTY_DICTIONARY);
+        return Dictionary.getDictionary(properties.getProperty(PROPERTY_DICTIONARY));
+    }
+
+    //monta o menu de dicionários a partir do registro atual
+    private void rebuildDictionaryMenu() {
+        dictionaryMenu.removeAll();
+        DictionaryInfo[] dictionaries = Dictionary.getDictionaryInfos();
+        Arrays.sort(dictionaries, (o1, o2) -> String.CASE_INSENSITIVE_ORDER.compare(o1.toString(), o2.toString()));
+        for (DictionaryInfo d:dictionaries) {
+            JCheckBoxMenuItem item = new JCheckBoxMenuItem(d.toString());
+            if (d.getId().equals(this.config.getProperties().getProperty(PROPERTY_DICTIONARY))) {
+                item.setSelected(true);
+            }
+            final DictionaryInfo currentDictionary = d;
+            item.addActionListener((evt) -> {
+                Dictionary selected;
+                try {
+                    selected = currentDictionary.getDictionary();
+                } catch (UncheckedIOException ex) {
+                    ex.printStackTrace();
+                    item.setSelected(false);
+                    JOptionPane.showMessageDialog(this,
+                            "Não foi possível carregar o dicionário:\n" + ex.getCause().getMessage(),
+                            "Erro", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                Component[] components = dictionaryMenu.getMenuComponents();
+                for (Component c:components) {
+                    ((JCheckBoxMenuItem)c).setSelected(false);
+                }
+                item.setSelected(true);
+
+                this.dict = selected;
+                this.config.getProperties().setProperty(PROPERTY_DICTIONARY, this.dict.getId());
+            });
+            dictionaryMenu.add(item);
+        }
+    }
+
+    //chamado na thread da interface quando o registro de dicionários muda (ver DictionaryWatcher)
+    private void onDictionariesChanged() {
+        String id = this.config.getProperties().getProperty(PROPERTY_DICTIONARY);
+        DictionaryInfo info = Dictionary.getDictionaryInfo(id);
+        if (info == null) {
+            //o dicionário selecionado foi apagado
+            this.dict = loadConfiguredDictionary();
+        } else if (info.isLoaded() && info.getDictionary() != this.dict) {
+            //o arquivo do dicionário selecionado mudou e já foi carregado de novo
+            this.dict = info.getDictionary();
+        }
+        rebuildDictionaryMenu();
     }
 
     /**
@@ -156,26 +226,7 @@ public class MainWindow extends javax.swing.JFrame {
         jMenu2.setText("Editar");
 
         dictionaryMenu.setText("Dicionário");
-        Dictionary[] dictionaries = Dictionary.getDictionaries();
-        Arrays.sort(dictionaries, (o1, o2) -> String.CASE_INSENSITIVE_ORDER.compare(o1.toString(), o2.toString()));
-        for (Dictionary d:dictionaries) {
-            JCheckBoxMenuItem item = new JCheckBoxMenuItem(d.toString());
-            if (this.dict == d) {
-                item.setSelected(true);
-            }
-            final Dictionary currentDictionary = d;
-            item.addActionListener((evt) -> {
-                Component[] components = dictionaryMenu.getMenuComponents();
-                for (Component c:components) {
-                    ((JCheckBoxMenuItem)c).setSelected(false);
-                }
-                item.setSelected(true);
-
-                this.dict = currentDictionary;
-                this.config.getProperties().setProperty(PROPERTY_DICTIONARY, this.dict.getId());
-            });
-            dictionaryMenu.add(item);
-        }
+        rebuildDictionaryMenu();
         jMenu2.add(dictionaryMenu);
         jMenu2.add(jSeparator3);
 
@@ -452,109 +503,20 @@ public class MainWindow extends javax.swing.JFrame {
         pack();
     }// </editor-fold>//GEN-END:initComponents
 
-    //retorna uma palavra com a primeira letra em maiúsculo
-    private String capitalize(String word) {
-        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
-    }
-
-    //o método de "decorar" a senha
-    //a partir das configurações atuais
-    //ex: a b c d -> A.b.c.d.12
-    private String decoratePassword(String[] words) {
-        char sep = (char) this.separatorCharacter;
-        StringBuilder b = new StringBuilder();
-        for (int i = 0; i < words.length; i++) {
-            //capitalização
-            //ex: a b c d -> A b c d
-            capitalize:
-            {
-                if (i == 0 && this.capitalizationMode == 1) {
-                    b.append(capitalize(words[i]));
-                    break capitalize;
-                }
-                if (this.capitalizationMode == 2) {
-                    b.append(capitalize(words[i]));
-                    break capitalize;
-                }
-                b.append(words[i]);
-            }
-            //separador
-            //ex: A b c d -> A.b.c.d
-            if (i != (words.length - 1) && sep != '\0') {
-                b.append(sep);
-            }
-        }
-        //o sufixo
-        if (this.useRandomSuffixButton.isSelected()) {
-            //aleatório
-            //certos sites não permite sequências como 11, 22, 33...
-            int n0 = this.random.nextInt(10);
-            int n1 = this.random.nextInt(10);
-            while (n0 == n1) {
-                n1 = this.random.nextInt(10);
-            }
-            //ex: A.b.c.d -> A.b.c.d.12
-            b.append(sep).append(n0).append(n1);
-        } else if (this.passwordSuffix != null && !this.passwordSuffix.isEmpty()) {
-            //definido pelo usuário
-            //ex: A.b.c.d -> A.b.c.d.2023
-            b.append(sep).append(this.passwordSuffix);
-        }
-        return b.toString();
-    }
-
-    //retorna a força de uma senha como o expoente de uma potência de dois
-    //log2(palavra1) + log2(palavra2) + ...
-    private float getPasswordStrength(int[] indices) {
-        double strength = 0.0;
-        for (int i : indices) {
-            strength += Math.log(i + 1.0) / Math.log(2.0);
-        }
-        return (float) strength;
-    }
-
-    //gera uma senha, retornando os índices de uma palavra
-    private int[] generatePassword() {
-        int[] indices = new int[this.numberOfWords];
-        for (int i = 0; i < indices.length; i++) {
-            indices[i] = this.random.nextInt(this.dict.getNumberOfWords());
-        }
-
-        return indices;
-    }
-
-    //calcula a palavra de recuperação com um XOR
-    //palavra1 ^ palavra2 ^ ...
-    private int calculateRecoveryWord(int[] indices) {
-        int xor = 0;
-        for (int i = 0; i < indices.length; i++) {
-            xor ^= indices[i];
-        }
-        return xor;
-    }
-
-    //retorna uma palavra do dicionário
-    //ou o índice em hexadecimal se for maior
-    //que a quantidade de palavras do dicionário
-    private String getDictionaryWord(int index) {
-        if (index >= this.dict.getNumberOfWords()) {
-            return "0x" + Integer.toHexString(index).toUpperCase();
-        }
-        return this.dict.getWord(index);
-    }
-
-    //converte os índices de uma senha para
-    //as palavras do dicionário
-    private String[] getDictionaryWords(int[] indices) {
-        String[] words = new String[indices.length];
-        for (int i = 0; i < indices.length; i++) {
-            words[i] = getDictionaryWord(indices[i]);
-        }
-        return words;
+    //cria um gerador de senhas com uma cópia das configurações atuais
+    private PasswordGenerator createGenerator() {
+        PasswordSettings settings = new PasswordSettings(
+                this.numberOfWords,
+                (char) this.separatorCharacter,
+                this.capitalizationMode,
+                this.useRandomSuffixButton.isSelected(),
+                this.passwordSuffix
+        );
+        return new PasswordGenerator(settings, this.dict, this.random);
     }
 
     //retorna uma senha em texto plano
-    private String plainText(
+    static String plainText(
             String password,
             String dictionary,
             String recoveryWord,
@@ -576,8 +538,7 @@ public class MainWindow extends javax.swing.JFrame {
         }
 
         //pega as palavras do dicionário e "decora" a senha
-        String[] words = getDictionaryWords(this.generatedPasswordIndices);
-        String password = decoratePassword(words);
+        String password = createGenerator().decoratePassword(this.generatedPasswordIndices);
         this.generatedPassword.setText(password);
         
         //gera o código de verificação
@@ -588,7 +549,7 @@ public class MainWindow extends javax.swing.JFrame {
         
         //a força máxima e a força "real" da senha
         float maxStrength = this.generatedPasswordIndices.length * this.dict.getBitsPerWord();
-        float realStrength = getPasswordStrength(this.generatedPasswordIndices);
+        float realStrength = PasswordGenerator.getPasswordStrength(this.generatedPasswordIndices);
 
         String formattedMax = String.format("%.2f", maxStrength);
         String formattedStrength = String.format("%.2f", realStrength);
@@ -608,9 +569,10 @@ public class MainWindow extends javax.swing.JFrame {
     //o botão de gerar senha
     private void generatePasswordActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_generatePasswordActionPerformed
         //gera a senha e a palavra de recuperação
-        this.generatedPasswordIndices = generatePassword();
-        int recovery = calculateRecoveryWord(this.generatedPasswordIndices);
-        this.extraFields.getRecoveryWord().setText(getDictionaryWord(recovery));
+        PasswordGenerator generator = createGenerator();
+        this.generatedPasswordIndices = generator.generatePassword();
+        int recovery = PasswordGenerator.calculateRecoveryWord(this.generatedPasswordIndices);
+        this.extraFields.getRecoveryWord().setText(generator.getDictionaryWord(recovery));
 
         //atualiza o campo de senha
         updatePasswordField();
@@ -662,7 +624,7 @@ public class MainWindow extends javax.swing.JFrame {
 
     //o botão da janela de recuperação
     private void recoveryWindowButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_recoveryWindowButtonActionPerformed
-        new RecoveryWindow(this, this.dict, this.numberOfWords).setVisible(true);
+        new RecoveryWindow(this, createGenerator()).setVisible(true);
     }//GEN-LAST:event_recoveryWindowButtonActionPerformed
 
     //mostra a senha em texto plano
@@ -720,52 +682,12 @@ public class MainWindow extends javax.swing.JFrame {
             return;
         }
         
-        //as seções para impressão
-        List<String> sections = new ArrayList<>();
-
-        //gera as senhas
-        StringBuilder b = new StringBuilder();
-        for (int i = 0; i < numberOfPasswords; i++) {
-            int[] password = generatePassword();
-            String passwordText = decoratePassword(getDictionaryWords(password));
-            if (passwordOnly) {
-                b.append(passwordText).append("\n");
-                sections.add(passwordText);
-            } else {
-                int recovery = calculateRecoveryWord(password);
-
-                byte[] randomSalt = VerificationWindow.getRandomSalt(this.random);
-                byte[] codeBytes = VerificationWindow.getVerificationCode(randomSalt, this.generatedPassword.getText().toCharArray());
-
-                String plainText = plainText(
-                        passwordText,
-                        this.dict.toString(),
-                        getDictionaryWord(recovery),
-                        VerificationWindow.getVerificationCodeHexString(codeBytes)
-                );
-
-                b.append(plainText).append("\n\n");
-                sections.add(plainText);
-            }
-        }
-        //mostra as senhas para o usuário
-        new TextDialog(this, "Texto Plano", b.toString()) {
-            @Override
-            protected String[] getTextSectionsForPrinting(boolean sectionCutlines) {
-                if (!sectionCutlines && !passwordOnly) {
-                    List<String> transformed = new ArrayList<>();
-                    for (int i = 0; i < sections.size(); i++) {
-                        String section = sections.get(i);
-                        if (i != (sections.size() - 1)) {
-                            section = section + "\n";
-                        }
-                        transformed.add(section);
-                    }
-                    return transformed.toArray(String[]::new);
-                }
-                return sections.toArray(String[]::new);
-            }
-        }.setVisible(true);
+        //gera as senhas em segundo plano
+        new BulkGenerationJob(
+                this,
+                createGenerator(), this.random, this.dict.toString(),
+                numberOfPasswords, passwordOnly
+        ).start();
     }
 
     //o botão de gerar várias senhas (todos os campos)
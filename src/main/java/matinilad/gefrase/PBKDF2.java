@@ -0,0 +1,271 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Implementação própria do PBKDF2 com HMAC-SHA256 (RFC 8018).<br>
+ * <br>
+ * Os estados do SHA-256 após os blocos (chave ^ ipad) e (chave ^ opad) do HMAC
+ * são calculados uma vez por senha e guardados como protótipos, então cada
+ * iteração custa apenas duas compressões do SHA-256 ao invés das quatro do
+ * PBKDF2WithHmacSHA256 do java. A compressão continua sendo a do MessageDigest
+ * do java, que usa as instruções SHA da cpu quando disponíveis, o MessageDigest
+ * não permite restaurar um estado sem uma cópia, então as cópias dos protótipos
+ * são as únicas alocações por iteração.<br>
+ * <br>
+ * Não é thread-safe, use {@link #get()} para pegar a instância da thread atual.
+ *
+ * @author Cien
+ */
+public class PBKDF2 {
+
+    //tamanho do bloco do SHA-256 em bytes
+    public static final int BLOCK_SIZE = 64;
+    //tamanho do hash do SHA-256 em bytes
+    public static final int DIGEST_SIZE = 32;
+
+    //uma instância por thread, com todos os buffers reutilizados
+    private static final ThreadLocal<PBKDF2> LOCAL = ThreadLocal.withInitial(PBKDF2::new);
+
+    /**
+     * Retorna a instância do PBKDF2 da thread atual
+     *
+     * @return a instância do PBKDF2 da thread atual
+     */
+    public static PBKDF2 get() {
+        return LOCAL.get();
+    }
+
+    //copia o estado de um MessageDigest
+    private static MessageDigest copy(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    //finaliza um hash escrevendo o resultado em um array
+    private static void finish(MessageDigest digest, byte[] out) {
+        try {
+            digest.digest(out, 0, DIGEST_SIZE);
+        } catch (DigestException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Codifica os caracteres de uma senha em UTF-8 da mesma forma
+     * que o PBKDF2WithHmacSHA256 do java (surrogates sem par viram '?')
+     *
+     * @param password a senha
+     * @param out o array de saída, com pelo menos 3 bytes por caractere
+     * @return quantos bytes foram escritos
+     */
+    public static int encodePassword(char[] password, byte[] out) {
+        byte[] b = out;
+        int length = 0;
+        for (int i = 0; i < password.length; i++) {
+            char c = password[i];
+            if (c < 0x80) {
+                b[length++] = (byte) c;
+            } else if (c < 0x800) {
+                b[length++] = (byte) (0xC0 | (c >> 6));
+                b[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)
+                    && (i + 1) < password.length
+                    && Character.isLowSurrogate(password[i + 1])) {
+                int cp = Character.toCodePoint(c, password[++i]);
+                b[length++] = (byte) (0xF0 | (cp >> 18));
+                b[length++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[length++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[length++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                b[length++] = (byte) '?';
+            } else {
+                b[length++] = (byte) (0xE0 | (c >> 12));
+                b[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return length;
+    }
+
+    //o SHA-256
+    private final MessageDigest sha;
+    //os estados do SHA-256 após os blocos (chave ^ ipad) e (chave ^ opad)
+    private MessageDigest innerPrototype = null;
+    private MessageDigest outerPrototype = null;
+    //o último U e o acumulador T
+    private final byte[] u = new byte[DIGEST_SIZE];
+    private final byte[] t = new byte[DIGEST_SIZE];
+    //a chave do HMAC com padding
+    private final byte[] key = new byte[BLOCK_SIZE];
+    //a senha em UTF-8 e a mensagem do primeiro bloco (salt || índice), crescem quando necessário
+    private byte[] passwordBytes = new byte[BLOCK_SIZE];
+    private byte[] message = new byte[BLOCK_SIZE];
+
+    /**
+     * Cria uma nova instância do PBKDF2
+     */
+    public PBKDF2() {
+        try {
+            this.sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Define a senha a partir dos caracteres, codificados em UTF-8 da mesma forma
+     * que o PBKDF2WithHmacSHA256 do java (surrogates sem par viram '?')
+     *
+     * @param password a senha
+     */
+    public void setPassword(char[] password) {
+        int maxLength = password.length * 3;
+        if (this.passwordBytes.length < maxLength) {
+            Arrays.fill(this.passwordBytes, (byte) 0);
+            this.passwordBytes = new byte[maxLength];
+        }
+        int length = encodePassword(password, this.passwordBytes);
+        setPassword(this.passwordBytes, 0, length);
+    }
+
+    /**
+     * Define a senha a partir dos bytes e calcula os estados do ipad e opad do HMAC
+     *
+     * @param password os bytes da senha
+     * @param offset a posição da senha nos bytes
+     * @param length o tamanho da senha
+     */
+    public void setPassword(byte[] password, int offset, int length) {
+        Arrays.fill(this.key, (byte) 0);
+        this.sha.reset();
+        if (length > BLOCK_SIZE) {
+            //chaves maiores que um bloco são substituídas pelo hash delas
+            this.sha.update(password, offset, length);
+            finish(this.sha, this.key);
+        } else {
+            System.arraycopy(password, offset, this.key, 0, length);
+        }
+
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            this.key[i] ^= 0x36;
+        }
+        this.sha.update(this.key);
+        this.innerPrototype = copy(this.sha);
+        this.sha.reset();
+
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            this.key[i] ^= (0x36 ^ 0x5c);
+        }
+        this.sha.update(this.key);
+        this.outerPrototype = copy(this.sha);
+        this.sha.reset();
+
+        Arrays.fill(this.key, (byte) 0);
+    }
+
+    /**
+     * Deriva a chave com a senha definida anteriormente
+     *
+     * @param salt o salt
+     * @param saltOffset a posição do salt nos bytes
+     * @param saltLength o tamanho do salt
+     * @param iterations a quantidade de iterações (maior que zero)
+     * @param out o array de saída
+     * @param outOffset a posição de saída
+     * @param outLength o tamanho da chave derivada
+     */
+    public void derive(byte[] salt, int saltOffset, int saltLength,
+            int iterations,
+            byte[] out, int outOffset, int outLength) {
+        if (this.innerPrototype == null) {
+            throw new IllegalStateException("password not set");
+        }
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be at least 1: " + iterations);
+        }
+        if (this.message.length < saltLength + 4) {
+            this.message = new byte[saltLength + 4];
+        }
+        System.arraycopy(salt, saltOffset, this.message, 0, saltLength);
+
+        int blocks = (outLength + DIGEST_SIZE - 1) / DIGEST_SIZE;
+        for (int block = 1; block <= blocks; block++) {
+            //U1 = HMAC(senha, salt || INT(bloco))
+            this.message[saltLength] = (byte) (block >>> 24);
+            this.message[saltLength + 1] = (byte) (block >>> 16);
+            this.message[saltLength + 2] = (byte) (block >>> 8);
+            this.message[saltLength + 3] = (byte) block;
+            hmac(this.message, saltLength + 4);
+            System.arraycopy(this.u, 0, this.t, 0, DIGEST_SIZE);
+
+            //Uj = HMAC(senha, Uj-1), T = U1 ^ U2 ^ ...
+            for (int j = 1; j < iterations; j++) {
+                hmac(this.u, DIGEST_SIZE);
+                for (int i = 0; i < DIGEST_SIZE; i++) {
+                    this.t[i] ^= this.u[i];
+                }
+            }
+
+            int blockOffset = (block - 1) * DIGEST_SIZE;
+            int length = Math.min(DIGEST_SIZE, outLength - blockOffset);
+            System.arraycopy(this.t, 0, out, outOffset + blockOffset, length);
+        }
+    }
+
+    //calcula o HMAC de uma mensagem a partir dos protótipos, o resultado vai para U
+    private void hmac(byte[] data, int length) {
+        MessageDigest inner = copy(this.innerPrototype);
+        inner.update(data, 0, length);
+        finish(inner, this.u);
+
+        MessageDigest outer = copy(this.outerPrototype);
+        outer.update(this.u, 0, DIGEST_SIZE);
+        finish(outer, this.u);
+    }
+
+    /**
+     * Limpa todos os estados e buffers que dependem da senha
+     */
+    public void clear() {
+        this.innerPrototype = null;
+        this.outerPrototype = null;
+        Arrays.fill(this.u, (byte) 0);
+        Arrays.fill(this.t, (byte) 0);
+        Arrays.fill(this.passwordBytes, (byte) 0);
+        Arrays.fill(this.message, (byte) 0);
+    }
+
+}
@@ -0,0 +1,408 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * O motor de geração de senhas, independente da interface gráfica.<br>
+ * <br>
+ * As configurações são imutáveis e tanto o SecureRandom do java quanto o
+ * {@link RandomBits} são thread-safe, então uma mesma instância pode ser usada
+ * por várias threads ao mesmo tempo.
+ *
+ * @author Cien
+ */
+public class PasswordGenerator {
+
+    /**
+     * Calcula a palavra de recuperação com um XOR<br>
+     * palavra1 ^ palavra2 ^ ...
+     *
+     * @param indices os índices das palavras da senha
+     * @return o índice da palavra de recuperação
+     */
+    public static int calculateRecoveryWord(int[] indices) {
+        int xor = 0;
+        for (int i = 0; i < indices.length; i++) {
+            xor ^= indices[i];
+        }
+        return xor;
+    }
+
+    /**
+     * Retorna a força de uma senha como o expoente de uma potência de dois<br>
+     * log2(palavra1) + log2(palavra2) + ...
+     *
+     * @param indices os índices das palavras da senha
+     * @return a força da senha em bits
+     */
+    public static float getPasswordStrength(int[] indices) {
+        double strength = 0.0;
+        for (int i : indices) {
+            strength += Math.log(i + 1.0) / Math.log(2.0);
+        }
+        return (float) strength;
+    }
+
+    //tamanho da seed dos geradores filhos
+    //(256 bits de segurança + 128 bits de nonce do DRBG)
+    public static final int SPLIT_SEED_SIZE = 48;
+
+    //as configurações de geração
+    private final PasswordSettings settings;
+    //o dicionário
+    private final Dictionary dictionary;
+    //o gerador de números
+    private final SecureRandom random;
+    //os bits aleatórios lidos em blocos do gerador de números
+    private final RandomBits randomBits;
+
+    //o separador e o sufixo em UTF-8, calculados uma vez
+    private final byte[] separatorBytes;
+    private final byte[] suffixBytes;
+    //o tamanho máximo de uma senha em bytes
+    private final int maxPasswordLength;
+
+    /**
+     * Cria um novo gerador de senhas
+     *
+     * @param settings as configurações de geração (não null)
+     * @param dictionary o dicionário (não null)
+     * @param random o SecureRandom para ser usado (não null)
+     */
+    public PasswordGenerator(PasswordSettings settings, Dictionary dictionary, SecureRandom random) {
+        this.settings = Objects.requireNonNull(settings, "settings is null");
+        this.dictionary = Objects.requireNonNull(dictionary, "dictionary is null");
+        this.random = Objects.requireNonNull(random, "random is null");
+        this.randomBits = new RandomBits(this.random);
+
+        char sep = this.settings.getSeparatorCharacter();
+        this.separatorBytes = (sep == '\0' ? new byte[0] : Character.toString(sep).getBytes(StandardCharsets.UTF_8));
+        this.suffixBytes = this.settings.getSuffix().getBytes(StandardCharsets.UTF_8);
+
+        int words = this.settings.getNumberOfWords();
+        int suffixLength = (this.settings.isUsingRandomSuffix() ? 2 : this.suffixBytes.length);
+        this.maxPasswordLength = (words * this.dictionary.getMaxWordByteLength())
+                + (words * this.separatorBytes.length)
+                + suffixLength;
+    }
+
+    /**
+     * Retorna o tamanho máximo de uma senha gerada por esse gerador, em bytes (UTF-8)
+     *
+     * @return o tamanho máximo de uma senha em bytes
+     */
+    public int getMaxPasswordLength() {
+        return maxPasswordLength;
+    }
+
+    /**
+     * Retorna as configurações de geração
+     *
+     * @return as configurações de geração
+     */
+    public PasswordSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Retorna o dicionário
+     *
+     * @return o dicionário
+     */
+    public Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Retorna o SecureRandom usado pelo gerador
+     *
+     * @return o SecureRandom usado pelo gerador
+     */
+    public SecureRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Cria um novo gerador com as mesmas configurações e dicionário, mas com
+     * uma instância própria de DRBG alimentada pelo DRBG deste gerador.<br>
+     * <br>
+     * O DRBG do java é sincronizado, então várias threads usando o mesmo gerador
+     * acabam esperando umas pelas outras, cada thread deve usar o seu próprio
+     * gerador dividido a partir de um gerador mestre.
+     *
+     * @return um novo gerador independente
+     */
+    public PasswordGenerator split() {
+        byte[] seed = new byte[SPLIT_SEED_SIZE];
+        this.random.nextBytes(seed);
+        return new PasswordGenerator(this.settings, this.dictionary, Main.createRandom(seed));
+    }
+
+    /**
+     * Retorna um stream de senhas em texto, se o stream for paralelo
+     * cada divisão usa o seu próprio gerador criado com {@link #split()}
+     *
+     * @param count a quantidade de senhas
+     * @param parallel se o stream deve ser paralelo
+     * @return o stream de senhas
+     */
+    public Stream<String> stream(long count, boolean parallel) {
+        return StreamSupport.stream(new PasswordSpliterator(this, count), parallel);
+    }
+
+    /**
+     * Gera uma senha, retornando os índices das palavras
+     *
+     * @return os índices das palavras da senha
+     */
+    public int[] generatePassword() {
+        int[] indices = new int[this.settings.getNumberOfWords()];
+        generatePassword(indices);
+        return indices;
+    }
+
+    /**
+     * Gera uma senha em um array fornecido, que pode ser reutilizado
+     *
+     * @param indices o array que vai receber os índices das palavras,
+     * do tamanho da quantidade de palavras das configurações
+     */
+    public void generatePassword(int[] indices) {
+        if (indices.length != this.settings.getNumberOfWords()) {
+            throw new IllegalArgumentException("indices length must be " + this.settings.getNumberOfWords());
+        }
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = this.randomBits.nextInt(this.dictionary.getNumberOfWords());
+        }
+    }
+
+    /**
+     * Retorna uma palavra do dicionário ou o índice em hexadecimal se for maior
+     * que a quantidade de palavras do dicionário
+     *
+     * @param index o índice da palavra
+     * @return a palavra ou o índice em hexadecimal
+     */
+    public String getDictionaryWord(int index) {
+        return this.dictionary.getWordOrHex(index);
+    }
+
+    /**
+     * Converte os índices de uma senha para as palavras do dicionário
+     *
+     * @param indices os índices das palavras
+     * @return as palavras do dicionário
+     */
+    public String[] getDictionaryWords(int[] indices) {
+        String[] words = new String[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            words[i] = getDictionaryWord(indices[i]);
+        }
+        return words;
+    }
+
+    /**
+     * "Decora" a senha a partir das configurações de geração<br>
+     * ex: a b c d -> A.b.c.d.12
+     *
+     * @param indices os índices das palavras da senha
+     * @return a senha em texto
+     */
+    public String decoratePassword(int[] indices) {
+        ByteBuffer buffer = ByteBuffer.allocate(
+                (indices.length * (this.dictionary.getMaxWordByteLength() + this.separatorBytes.length))
+                + Math.max(2, this.suffixBytes.length));
+        encodePassword(indices, buffer);
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * "Decora" a senha a partir das configurações de geração e escreve ela
+     * em UTF-8 em um buffer fornecido, sem alocar nada<br>
+     * ex: a b c d -> A.b.c.d.12
+     *
+     * @param indices os índices das palavras da senha, todos dentro do dicionário
+     * @param out o buffer de saída, com pelo menos {@link #getMaxPasswordLength()} bytes restantes
+     * para senhas com a quantidade de palavras das configurações
+     */
+    public void encodePassword(int[] indices, ByteBuffer out) {
+        encodeWords(indices, out);
+        //o sufixo
+        if (this.settings.isUsingRandomSuffix()) {
+            //aleatório
+            //certos sites não permite sequências como 11, 22, 33...
+            //um único sorteio entre os 90 pares de dígitos diferentes
+            int pair = this.randomBits.nextInt(10 * 9);
+            int n0 = pair / 9;
+            int n1 = pair % 9;
+            if (n1 >= n0) {
+                n1++;
+            }
+            //ex: A.b.c.d -> A.b.c.d.12
+            out.put(this.separatorBytes);
+            out.put((byte) ('0' + n0));
+            out.put((byte) ('0' + n1));
+        } else if (this.suffixBytes.length != 0) {
+            //definido pelo usuário
+            //ex: A.b.c.d -> A.b.c.d.2023
+            out.put(this.separatorBytes);
+            out.put(this.suffixBytes);
+        }
+    }
+
+    /**
+     * "Decora" a senha a partir das configurações de geração, mas com um sufixo
+     * fornecido no lugar do sufixo das configurações (usado na recuperação de senhas)<br>
+     * ex: a b c d, 12 -> A.b.c.d.12
+     *
+     * @param indices os índices das palavras da senha, todos dentro do dicionário
+     * @param suffix o sufixo, vazio para nenhum
+     * @return a senha em texto
+     */
+    public String decoratePassword(int[] indices, String suffix) {
+        byte[] suffixData = suffix.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(
+                (indices.length * (this.dictionary.getMaxWordByteLength() + this.separatorBytes.length))
+                + suffixData.length);
+        encodeWords(indices, buffer);
+        if (suffixData.length != 0) {
+            buffer.put(this.separatorBytes);
+            buffer.put(suffixData);
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Separa uma senha em texto (colada pelo usuário por exemplo) nas partes dela pelo
+     * separador das configurações, o inverso de {@link #decoratePassword(int[])}.
+     * Cada parte pode ser procurada com {@link Dictionary#indexOf(String)}, a última parte
+     * pode ser o sufixo.<br>
+     * ex: A.b.c.d.12 -> A b c d 12<br>
+     * <br>
+     * Sem separador as palavras são separadas pelo dicionário (veja {@link #segmentPassword(String)}).
+     *
+     * @param password a senha
+     * @return as partes da senha, vazio se a senha estiver vazia
+     */
+    public String[] splitPassword(String password) {
+        String trimmed = password.strip();
+        if (trimmed.isEmpty()) {
+            return new String[0];
+        }
+        char separator = this.settings.getSeparatorCharacter();
+        if (separator == '\0') {
+            return segmentPassword(trimmed);
+        }
+        if (Character.isWhitespace(separator)) {
+            return trimmed.split("\\s+");
+        }
+        return trimmed.split(Pattern.quote(String.valueOf(separator)), -1);
+    }
+
+    //separa uma senha sem separador em palavras do dicionário, procurando o maior começo da senha
+    //que forma a quantidade de palavras das configurações, o que sobrar é o sufixo
+    //se não for possível, separa o máximo de palavras possível e o resto fica em uma parte só
+    //ex: AbcDefGhi12 -> Abc Def Ghi 12
+    private String[] segmentPassword(String password) {
+        int words = this.settings.getNumberOfWords();
+        int length = password.length();
+        int maxWordLength = Math.min(length, this.dictionary.getMaxWordByteLength());
+
+        //previous[k][p] é onde começa a k-ésima palavra que termina em p, -1 se nenhuma
+        int[][] previous = new int[words + 1][length + 1];
+        for (int[] row : previous) {
+            Arrays.fill(row, -1);
+        }
+        previous[0][0] = 0;
+        for (int k = 0; k < words; k++) {
+            for (int start = 0; start < length; start++) {
+                if (previous[k][start] == -1) {
+                    continue;
+                }
+                for (int end = start + 1; end <= Math.min(length, start + maxWordLength); end++) {
+                    if (previous[k + 1][end] == -1
+                            && this.dictionary.indexOf(password.substring(start, end)) != -1) {
+                        previous[k + 1][end] = start;
+                    }
+                }
+            }
+        }
+
+        //a maior quantidade de palavras e então o maior começo da senha
+        int k = words;
+        int end = -1;
+        for (; k > 0; k--) {
+            for (int p = length; p > 0; p--) {
+                if (previous[k][p] != -1) {
+                    end = p;
+                    break;
+                }
+            }
+            if (end != -1) {
+                break;
+            }
+        }
+        if (end == -1) {
+            return new String[]{password};
+        }
+
+        String[] parts = new String[k + (end < length ? 1 : 0)];
+        if (end < length) {
+            parts[k] = password.substring(end);
+        }
+        for (int i = k; i > 0; i--) {
+            int start = previous[i][end];
+            parts[i - 1] = password.substring(start, end);
+            end = start;
+        }
+        return parts;
+    }
+
+    //escreve as palavras da senha com a capitalização e os separadores, sem o sufixo
+    private void encodeWords(int[] indices, ByteBuffer out) {
+        for (int i = 0; i < indices.length; i++) {
+            //capitalização
+            //ex: a b c d -> A b c d
+            this.dictionary.writeWord(indices[i], this.settings.isCapitalized(i), out);
+            //separador
+            //ex: A b c d -> A.b.c.d
+            if (i != (indices.length - 1)) {
+                out.put(this.separatorBytes);
+            }
+        }
+    }
+
+}
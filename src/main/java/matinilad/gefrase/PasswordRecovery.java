@@ -0,0 +1,332 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recuperação de palavras esquecidas por força bruta usando o código de verificação.<br>
+ * <br>
+ * Todas as combinações das palavras que faltam (e dos sufixos possíveis) são testadas
+ * contra o código de verificação em todos os núcleos, com o {@link BatchPBKDF2}.
+ * Se a palavra de recuperação for conhecida, a última palavra que falta é calculada
+ * pelo XOR das outras, então uma palavra a menos precisa ser testada.<br>
+ * <br>
+ * O código de verificação tem apenas 40 bits de hash, então uma senha encontrada
+ * em uma busca muito grande pode ser um falso positivo.
+ *
+ * @author Cien
+ */
+public class PasswordRecovery {
+
+    //quantidade máxima de senhas testadas em uma busca
+    public static final long MAX_CANDIDATES = 1L << 40;
+    //quantidade de senhas que uma thread pega de uma vez
+    public static final int BLOCK_SIZE = 256;
+
+    /**
+     * Retorna os 90 sufixos aleatórios possíveis (pares de dígitos diferentes)
+     *
+     * @return os sufixos aleatórios possíveis
+     */
+    public static String[] getRandomSuffixes() {
+        String[] suffixes = new String[10 * 9];
+        int index = 0;
+        for (int n0 = 0; n0 < 10; n0++) {
+            for (int n1 = 0; n1 < 10; n1++) {
+                if (n0 != n1) {
+                    suffixes[index++] = "" + ((char) ('0' + n0)) + ((char) ('0' + n1));
+                }
+            }
+        }
+        return suffixes;
+    }
+
+    /**
+     * O resultado de uma busca
+     */
+    public static class Result {
+
+        //os índices das palavras da senha
+        private final int[] indices;
+        //a senha em texto
+        private final String password;
+
+        private Result(int[] indices, String password) {
+            this.indices = indices;
+            this.password = password;
+        }
+
+        /**
+         * Retorna os índices das palavras da senha encontrada
+         *
+         * @return os índices das palavras da senha encontrada
+         */
+        public int[] getIndices() {
+            return indices.clone();
+        }
+
+        /**
+         * Retorna a senha encontrada em texto
+         *
+         * @return a senha encontrada em texto
+         */
+        public String getPassword() {
+            return password;
+        }
+    }
+
+    //o gerador usado para "decorar" as senhas
+    private final PasswordGenerator generator;
+    //os índices conhecidos, -1 para as palavras que faltam
+    private final int[] known;
+    //a palavra de recuperação, -1 se desconhecida
+    private final int recoveryWord;
+    //os sufixos possíveis
+    private final String[] suffixes;
+    //o código de verificação completo e o salt aleatório dele
+    private final byte[] verificationCode;
+    private final byte[] randomSalt;
+
+    //as posições das palavras que são testadas
+    private final int[] searched;
+    //a posição da palavra calculada pelo XOR, -1 se não tiver
+    private final int derived;
+    //a quantidade de palavras do dicionário
+    private final int dictionarySize;
+    //a quantidade de senhas testadas
+    private final long total;
+
+    //a próxima senha a ser pega por uma thread
+    private final AtomicLong next = new AtomicLong();
+    //quantas senhas foram testadas
+    private final LongAdder progress = new LongAdder();
+    //se a busca deve parar (encontrada ou cancelada)
+    private final AtomicBoolean stop = new AtomicBoolean();
+    //o resultado
+    private final AtomicReference<Result> result = new AtomicReference<>();
+
+    /**
+     * Cria uma nova busca
+     *
+     * @param generator o gerador com as configurações e o dicionário da senha (não null)
+     * @param known os índices das palavras conhecidas, -1 para as que faltam (pelo menos uma)
+     * @param recoveryWord a palavra de recuperação, -1 se desconhecida
+     * @param suffixes os sufixos possíveis, vazio para nenhum sufixo (pelo menos um)
+     * @param verificationCode o código de verificação
+     * @throws IllegalArgumentException se algum argumento for inválido ou a busca for grande demais
+     */
+    public PasswordRecovery(
+            PasswordGenerator generator,
+            int[] known, int recoveryWord,
+            String[] suffixes,
+            byte[] verificationCode) throws IllegalArgumentException {
+        this.generator = Objects.requireNonNull(generator, "generator is null");
+        this.dictionarySize = generator.getDictionary().getNumberOfWords();
+        if (known.length != generator.getSettings().getNumberOfWords()) {
+            throw new IllegalArgumentException("known length must be " + generator.getSettings().getNumberOfWords());
+        }
+        if (suffixes.length == 0) {
+            throw new IllegalArgumentException("at least one suffix is required");
+        }
+        if (verificationCode.length != VerificationWindow.VERIFICATION_CODE_SIZE) {
+            throw new IllegalArgumentException("verification code length must be " + VerificationWindow.VERIFICATION_CODE_SIZE);
+        }
+        this.known = known.clone();
+        this.recoveryWord = recoveryWord;
+        this.suffixes = suffixes.clone();
+        this.verificationCode = verificationCode.clone();
+        this.randomSalt = Arrays.copyOf(verificationCode, VerificationWindow.RANDOM_SALT_SIZE);
+
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < this.known.length; i++) {
+            if (this.known[i] < 0) {
+                this.known[i] = -1;
+                missing.add(i);
+            } else if (this.known[i] >= this.dictionarySize) {
+                throw new IllegalArgumentException("word " + i + " is outside of the dictionary");
+            }
+        }
+        if (missing.isEmpty()) {
+            throw new IllegalArgumentException("no missing words");
+        }
+        if (recoveryWord >= 0) {
+            this.derived = missing.remove(missing.size() - 1);
+        } else {
+            this.derived = -1;
+        }
+        this.searched = missing.stream().mapToInt(Integer::intValue).toArray();
+
+        long count = this.suffixes.length;
+        for (int i = 0; i < this.searched.length; i++) {
+            if (count > MAX_CANDIDATES / this.dictionarySize) {
+                throw new IllegalArgumentException("too many candidates");
+            }
+            count *= this.dictionarySize;
+        }
+        this.total = count;
+    }
+
+    /**
+     * Retorna a quantidade de senhas que a busca testa no pior caso
+     *
+     * @return a quantidade de senhas
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Retorna quantas senhas já foram testadas, pode ser chamado de qualquer thread
+     *
+     * @return quantas senhas já foram testadas
+     */
+    public long getProgress() {
+        return this.progress.sum();
+    }
+
+    /**
+     * Para a busca, pode ser chamado de qualquer thread
+     */
+    public void cancel() {
+        this.stop.set(true);
+    }
+
+    //preenche os índices de uma senha a partir do número dela,
+    //retorna o sufixo ou null se a palavra calculada pelo XOR estiver fora do dicionário
+    private String candidate(long number, int[] indices) {
+        System.arraycopy(this.known, 0, indices, 0, indices.length);
+        String suffix = this.suffixes[(int) (number % this.suffixes.length)];
+        number /= this.suffixes.length;
+        for (int position : this.searched) {
+            indices[position] = (int) (number % this.dictionarySize);
+            number /= this.dictionarySize;
+        }
+        if (this.derived != -1) {
+            int xor = this.recoveryWord;
+            for (int i = 0; i < indices.length; i++) {
+                if (i != this.derived) {
+                    xor ^= indices[i];
+                }
+            }
+            if (xor >= this.dictionarySize) {
+                return null;
+            }
+            indices[this.derived] = xor;
+        }
+        return suffix;
+    }
+
+    //o trabalho de uma thread, pega blocos de senhas até acabar ou parar
+    private void work() {
+        int[][] indices = new int[BLOCK_SIZE][this.known.length];
+        String[] passwords = new String[BLOCK_SIZE];
+        char[][] chars = new char[BLOCK_SIZE][];
+        byte[][] salts = new byte[BLOCK_SIZE][];
+        Arrays.fill(salts, this.randomSalt);
+
+        while (!this.stop.get()) {
+            long start = this.next.getAndAdd(BLOCK_SIZE);
+            if (start >= this.total) {
+                break;
+            }
+            int size = (int) Math.min(BLOCK_SIZE, this.total - start);
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                String suffix = candidate(start + i, indices[count]);
+                if (suffix == null) {
+                    continue;
+                }
+                passwords[count] = this.generator.decoratePassword(indices[count], suffix);
+                chars[count] = passwords[count].toCharArray();
+                count++;
+            }
+
+            byte[][] codes = VerificationWindow.getVerificationCodes(salts, chars, 0, count);
+            for (int i = 0; i < count; i++) {
+                Arrays.fill(chars[i], '\0');
+                if (Arrays.equals(codes[i], this.verificationCode)) {
+                    this.result.compareAndSet(null, new Result(indices[i].clone(), passwords[i]));
+                    this.stop.set(true);
+                }
+            }
+            this.progress.add(size);
+        }
+    }
+
+    /**
+     * Executa a busca com várias threads e espera ela terminar
+     *
+     * @param threads a quantidade de threads (0 para todos os núcleos)
+     * @return a senha encontrada ou null se nenhuma senha foi encontrada ou a busca foi cancelada
+     * @throws InterruptedException se a thread for interrompida enquanto espera
+     */
+    public Result run(int threads) throws InterruptedException {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    work();
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof RuntimeException r) {
+                        throw r;
+                    }
+                    throw new RuntimeException(ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            cancel();
+            throw ex;
+        } finally {
+            executor.shutdownNow();
+        }
+        return this.result.get();
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.util.Objects;
+
+/**
+ * Uma cópia imutável das configurações de geração de senha
+ *
+ * @author Cien
+ */
+public class PasswordSettings {
+
+    //modos de capitalização
+    public static final int CAPITALIZATION_NONE = 0;
+    public static final int CAPITALIZATION_FIRST_WORD = 1;
+    public static final int CAPITALIZATION_ALL_WORDS = 2;
+
+    //quantidade máxima de palavras
+    public static final int MAX_NUMBER_OF_WORDS = 16;
+
+    //a quantidade de palavras
+    private final int numberOfWords;
+    //o separador, '\0' para nenhum
+    private final char separatorCharacter;
+    //o modo de capitalização
+    private final int capitalizationMode;
+    //se o sufixo aleatório deve ser usado
+    private final boolean useRandomSuffix;
+    //o sufixo definido pelo usuário
+    private final String suffix;
+
+    /**
+     * Cria uma nova configuração de geração de senha
+     *
+     * @param numberOfWords a quantidade de palavras (entre 1 e 16)
+     * @param separatorCharacter o separador, '\0' para nenhum
+     * @param capitalizationMode o modo de capitalização (0 para nenhum, 1 para primeira palavra, 2 para todas as palavras)
+     * @param useRandomSuffix se o sufixo aleatório deve ser usado
+     * @param suffix o sufixo definido pelo usuário, null é o mesmo que vazio
+     */
+    public PasswordSettings(
+            int numberOfWords,
+            char separatorCharacter,
+            int capitalizationMode,
+            boolean useRandomSuffix,
+            String suffix) {
+        if (numberOfWords < 1 || numberOfWords > MAX_NUMBER_OF_WORDS) {
+            throw new IllegalArgumentException("Invalid number of words: " + numberOfWords);
+        }
+        if (capitalizationMode < CAPITALIZATION_NONE || capitalizationMode > CAPITALIZATION_ALL_WORDS) {
+            throw new IllegalArgumentException("Invalid capitalization mode: " + capitalizationMode);
+        }
+        this.numberOfWords = numberOfWords;
+        this.separatorCharacter = separatorCharacter;
+        this.capitalizationMode = capitalizationMode;
+        this.useRandomSuffix = useRandomSuffix;
+        this.suffix = Objects.requireNonNullElse(suffix, "");
+    }
+
+    /**
+     * Retorna a quantidade de palavras
+     *
+     * @return a quantidade de palavras
+     */
+    public int getNumberOfWords() {
+        return numberOfWords;
+    }
+
+    /**
+     * Retorna o separador
+     *
+     * @return o separador, '\0' para nenhum
+     */
+    public char getSeparatorCharacter() {
+        return separatorCharacter;
+    }
+
+    /**
+     * Retorna o modo de capitalização
+     *
+     * @return o modo de capitalização
+     */
+    public int getCapitalizationMode() {
+        return capitalizationMode;
+    }
+
+    /**
+     * Retorna se o sufixo aleatório deve ser usado
+     *
+     * @return se o sufixo aleatório deve ser usado
+     */
+    public boolean isUsingRandomSuffix() {
+        return useRandomSuffix;
+    }
+
+    /**
+     * Retorna o sufixo definido pelo usuário
+     *
+     * @return o sufixo definido pelo usuário, nunca null
+     */
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * Retorna se a palavra de um índice da senha deve ser capitalizada
+     *
+     * @param wordIndex o índice da palavra na senha
+     * @return se a palavra deve ser capitalizada
+     */
+    public boolean isCapitalized(int wordIndex) {
+        return this.capitalizationMode == CAPITALIZATION_ALL_WORDS
+                || (wordIndex == 0 && this.capitalizationMode == CAPITALIZATION_FIRST_WORD);
+    }
+
+}
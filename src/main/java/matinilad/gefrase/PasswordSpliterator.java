@@ -0,0 +1,109 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Um Spliterator de senhas em texto, cada divisão recebe um gerador próprio
+ * (e com isso um DRBG próprio) para que as threads não disputem o mesmo DRBG.
+ *
+ * @author Cien
+ */
+public class PasswordSpliterator implements Spliterator<String> {
+
+    //quantidade mínima de senhas para uma divisão
+    public static final long MINIMUM_SPLIT_SIZE = 1024;
+
+    //o gerador dessa divisão
+    private final PasswordGenerator generator;
+    //quantidade de senhas restantes
+    private long remaining;
+
+    /**
+     * Cria um novo Spliterator de senhas
+     *
+     * @param generator o gerador de senhas (não null)
+     * @param count a quantidade de senhas
+     */
+    public PasswordSpliterator(PasswordGenerator generator, long count) {
+        this.generator = Objects.requireNonNull(generator, "generator is null");
+        if (count < 0) {
+            throw new IllegalArgumentException("count is negative: " + count);
+        }
+        this.remaining = count;
+    }
+
+    /**
+     * Retorna o gerador usado por essa divisão
+     *
+     * @return o gerador usado por essa divisão
+     */
+    public PasswordGenerator getGenerator() {
+        return generator;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (this.remaining <= 0) {
+            return false;
+        }
+        this.remaining--;
+        action.accept(this.generator.decoratePassword(this.generator.generatePassword()));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        for (; this.remaining > 0; this.remaining--) {
+            action.accept(this.generator.decoratePassword(this.generator.generatePassword()));
+        }
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        if (this.remaining < MINIMUM_SPLIT_SIZE * 2) {
+            return null;
+        }
+        long half = this.remaining / 2;
+        this.remaining -= half;
+        return new PasswordSpliterator(this.generator.split(), half);
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+}
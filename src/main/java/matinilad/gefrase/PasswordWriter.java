@@ -0,0 +1,181 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Escreve várias senhas, uma por linha, diretamente em um canal de bytes.<br>
+ * <br>
+ * As senhas são codificadas em um buffer direto reutilizado por thread,
+ * então a memória usada é constante independente da quantidade de senhas.
+ *
+ * @author Cien
+ */
+public class PasswordWriter {
+
+    //tamanho do buffer de escrita
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    //o gerador de senhas
+    private final PasswordGenerator generator;
+    //o canal de saída
+    private final WritableByteChannel channel;
+
+    /**
+     * Cria um novo escritor de senhas
+     *
+     * @param generator o gerador de senhas (não null)
+     * @param channel o canal de saída (não null)
+     */
+    public PasswordWriter(PasswordGenerator generator, WritableByteChannel channel) {
+        this.generator = Objects.requireNonNull(generator, "generator is null");
+        this.channel = Objects.requireNonNull(channel, "channel is null");
+    }
+
+    /**
+     * Retorna o gerador de senhas
+     *
+     * @return o gerador de senhas
+     */
+    public PasswordGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Retorna o canal de saída
+     *
+     * @return o canal de saída
+     */
+    public WritableByteChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Gera e escreve senhas no canal, uma por linha
+     *
+     * @param count a quantidade de senhas
+     * @throws IOException se acontecer algum erro de escrita
+     */
+    public void write(long count) throws IOException {
+        write(count, 1);
+    }
+
+    /**
+     * Gera e escreve senhas no canal, uma por linha, usando várias threads.<br>
+     * <br>
+     * Cada thread usa um gerador próprio criado com {@link PasswordGenerator#split()}
+     * e escreve blocos inteiros de linhas no canal, a ordem entre as threads não é definida.
+     *
+     * @param count a quantidade de senhas
+     * @param threads a quantidade de threads (maior que zero)
+     * @throws IOException se acontecer algum erro de escrita
+     */
+    public void write(long count, int threads) throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("count is negative: " + count);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        if (threads == 1) {
+            writePasswords(this.generator, count);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                long workerCount = (count / threads) + (i < (count % threads) ? 1 : 0);
+                //os geradores são divididos nessa thread, em sequência, a partir do mestre
+                PasswordGenerator workerGenerator = this.generator.split();
+                futures.add(executor.submit(() -> {
+                    writePasswords(workerGenerator, workerCount);
+                    return null;
+                }));
+            }
+            for (Future<Void> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //gera e escreve senhas com um gerador e um buffer próprio
+    //o array de índices e o buffer são reutilizados, nada é alocado por senha
+    private void writePasswords(PasswordGenerator gen, long count) throws IOException {
+        int lineLength = gen.getMaxPasswordLength() + 1;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, lineLength));
+        int[] indices = new int[gen.getSettings().getNumberOfWords()];
+        for (long i = 0; i < count; i++) {
+            if (buffer.remaining() < lineLength) {
+                flush(buffer);
+            }
+            gen.generatePassword(indices);
+            gen.encodePassword(indices, buffer);
+            buffer.put((byte) '\n');
+        }
+        flush(buffer);
+    }
+
+    //escreve todo o conteúdo pendente de um buffer no canal
+    private void flush(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    //escreve todos os bytes restantes de um buffer no canal
+    //sincronizado para que as linhas de threads diferentes não se misturem
+    private void writeFully(ByteBuffer data) throws IOException {
+        synchronized (this.channel) {
+            while (data.hasRemaining()) {
+                this.channel.write(data);
+            }
+        }
+    }
+
+}
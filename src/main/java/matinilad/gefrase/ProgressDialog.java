@@ -0,0 +1,137 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.WindowConstants;
+
+/**
+ * Uma janela não modal com uma barra de progresso, uma linha de status e um botão de cancelar
+ *
+ * @author Cien
+ */
+@SuppressWarnings("serial")
+public class ProgressDialog extends javax.swing.JDialog {
+
+    //a barra de progresso
+    private final JProgressBar progressBar = new JProgressBar(0, 1000);
+    //a linha de status (velocidade, tempo restante)
+    private final JLabel statusLabel = new JLabel(" ");
+    //o botão de cancelar
+    private final JButton cancelButton = new JButton("Cancelar");
+
+    /**
+     * Cria uma nova janela de progresso
+     *
+     * @param parent a janela pai
+     * @param title o título da janela
+     * @param onCancel executado na thread do swing quando o usuário cancela (pelo botão ou fechando a janela)
+     */
+    public ProgressDialog(java.awt.Window parent, String title, Runnable onCancel) {
+        super(parent, ModalityType.MODELESS);
+        setTitle(title);
+        setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+
+        this.progressBar.setStringPainted(true);
+        this.cancelButton.addActionListener((e) -> {
+            this.cancelButton.setEnabled(false);
+            onCancel.run();
+        });
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                if (ProgressDialog.this.cancelButton.isEnabled()) {
+                    ProgressDialog.this.cancelButton.doClick();
+                }
+            }
+        });
+
+        JPanel panel = new JPanel(new BorderLayout(0, 6));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(this.progressBar, BorderLayout.NORTH);
+        panel.add(this.statusLabel, BorderLayout.CENTER);
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 0));
+        buttons.add(this.cancelButton);
+        panel.add(buttons, BorderLayout.SOUTH);
+        setContentPane(panel);
+
+        setSize(420, 140);
+        setLocationRelativeTo(parent);
+    }
+
+    /**
+     * Atualiza o progresso, deve ser chamado na thread do swing
+     *
+     * @param done quantos itens foram concluídos
+     * @param total o total de itens
+     * @param status a linha de status
+     */
+    public void setProgress(long done, long total, String status) {
+        int value = (int) ((done * this.progressBar.getMaximum()) / Math.max(total, 1));
+        this.progressBar.setValue(value);
+        this.progressBar.setString(done + " / " + total);
+        this.statusLabel.setText(status);
+    }
+
+    /**
+     * Atualiza o progresso com a velocidade e o tempo restante calculados
+     * a partir do início, deve ser chamado na thread do swing
+     *
+     * @param done quantos itens foram concluídos
+     * @param total o total de itens
+     * @param startTime quando começou, de {@link System#nanoTime()}
+     * @param unit o nome dos itens, ex: senhas
+     */
+    public void setProgress(long done, long total, long startTime, String unit) {
+        double elapsed = (System.nanoTime() - startTime) / 1E9;
+        double perSecond = done / Math.max(elapsed, 1E-3);
+        String remaining = "--:--:--";
+        if (perSecond > 0.0) {
+            remaining = formatDuration((total - done) / perSecond);
+        }
+        setProgress(done, total,
+                String.format("%.1f %s/s, tempo restante: %s", perSecond, unit, remaining));
+    }
+
+    /**
+     * Formata uma duração em segundos como horas:minutos:segundos
+     *
+     * @param seconds a duração em segundos
+     * @return a duração formatada
+     */
+    public static String formatDuration(double seconds) {
+        long s = (long) Math.ceil(seconds);
+        return String.format("%d:%02d:%02d", s / 3600, (s / 60) % 60, s % 60);
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.security.SecureRandom;
+import java.util.Objects;
+
+/**
+ * Fonte de bits aleatórios que lê um bloco grande do SecureRandom de uma vez
+ * e fatia os bits necessários a partir dele.<br>
+ * <br>
+ * Com um dicionário de 4096 palavras cada índice consome exatamente 12 bits,
+ * então um bloco de 1024 bytes gera 682 índices com uma única chamada ao DRBG.
+ * Para tamanhos que não são potência de dois é usada amostragem por rejeição,
+ * que não possui viés.<br>
+ * <br>
+ * Os métodos são sincronizados, então uma instância pode ser compartilhada entre threads.
+ *
+ * @author Cien
+ */
+public class RandomBits {
+
+    //tamanho do bloco lido do SecureRandom
+    public static final int BLOCK_SIZE = 1024;
+
+    //o gerador de números
+    private final SecureRandom random;
+    //o bloco de bytes aleatórios e a posição atual nele
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private int position = BLOCK_SIZE;
+    //os bits restantes do último byte lido
+    private long bits = 0;
+    private int availableBits = 0;
+
+    /**
+     * Cria uma nova fonte de bits aleatórios
+     *
+     * @param random o SecureRandom para ser usado (não null)
+     */
+    public RandomBits(SecureRandom random) {
+        this.random = Objects.requireNonNull(random, "random is null");
+    }
+
+    /**
+     * Retorna o SecureRandom usado
+     *
+     * @return o SecureRandom usado
+     */
+    public SecureRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Retorna um número aleatório com uma quantidade de bits
+     *
+     * @param count a quantidade de bits, de 0 a 31
+     * @return um número aleatório entre 0 (inclusivo) e 2^count (exclusivo)
+     */
+    public synchronized int nextBits(int count) {
+        if (count < 0 || count > 31) {
+            throw new IllegalArgumentException("Invalid number of bits: " + count);
+        }
+        while (this.availableBits < count) {
+            if (this.position == this.block.length) {
+                this.random.nextBytes(this.block);
+                this.position = 0;
+            }
+            this.bits = (this.bits << 8) | (this.block[this.position++] & 0xFF);
+            this.availableBits += 8;
+        }
+        this.availableBits -= count;
+        return (int) ((this.bits >>> this.availableBits) & ((1L << count) - 1));
+    }
+
+    /**
+     * Retorna um número aleatório uniforme, sem viés
+     *
+     * @param bound o limite, maior que zero
+     * @return um número aleatório entre 0 (inclusivo) e bound (exclusivo)
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive: " + bound);
+        }
+        int count = 32 - Integer.numberOfLeadingZeros(bound - 1);
+        if ((bound & (bound - 1)) == 0) {
+            //potência de dois, os bits são usados diretamente
+            return nextBits(count);
+        }
+        //rejeição, no pior caso metade dos valores são descartados
+        int value;
+        do {
+            value = nextBits(count);
+        } while (value >= bound);
+        return value;
+    }
+
+}
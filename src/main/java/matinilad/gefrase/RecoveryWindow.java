@@ -29,13 +29,20 @@ package matinilad.gefrase;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Toolkit;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.UnsupportedFlavorException;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 /**
  * A janela de recuperação de senha
@@ -96,12 +103,7 @@ public class RecoveryWindow extends javax.swing.JDialog {
             //pega o dicionário da janela de recuperação e mostra a palavra
             //ou coloca um valor em hexadecimal caso esteja fora dos limites
             //do dicionário
-            Dictionary dict = RecoveryWindow.this.dictionary;
-            if (value >= RecoveryWindow.this.dictionary.getNumberOfWords()) {
-                this.field.setText("0x" + Integer.toHexString(value).toUpperCase());
-            } else {
-                this.field.setText(dict.getWord(value));
-            }
+            this.field.setText(RecoveryWindow.this.dictionary.getWordOrHex(value));
             this.selected = value;
 
             onWordSelected();
@@ -145,27 +147,30 @@ public class RecoveryWindow extends javax.swing.JDialog {
         }
     }
 
+    //o gerador com as configurações da senha
+    private final PasswordGenerator generator;
     //o dicionário
     private final Dictionary dictionary;
     //a quantidade de palavras da senha
     private final int numberOfWords;
     //os painéis de palavra da senha
     private final WordPanel[] panels;
+    //o campo do código de verificação
+    private final JTextField verificationCodeField = new JTextField();
+    //o campo do sufixo
+    private final JTextField suffixField = new JTextField();
 
     /**
      * Cria uma nova janela de recuperação de senha
      *
      * @param parent a janela pai
-     * @param dictionary o dicionário (não null)
-     * @param numberOfWords a quantidade de palavras da senha (maior que zero)
+     * @param generator o gerador com o dicionário e as configurações da senha (não null)
      */
-    public RecoveryWindow(java.awt.Frame parent, Dictionary dictionary, int numberOfWords) {
+    public RecoveryWindow(java.awt.Frame parent, PasswordGenerator generator) {
         super(parent, true);
-        this.dictionary = Objects.requireNonNull(dictionary, "dictionary is null");
-        if (numberOfWords < 1) {
-            throw new IndexOutOfBoundsException(numberOfWords + " < 1");
-        }
-        this.numberOfWords = numberOfWords;
+        this.generator = Objects.requireNonNull(generator, "generator is null");
+        this.dictionary = generator.getDictionary();
+        this.numberOfWords = generator.getSettings().getNumberOfWords();
         initComponents();
 
         this.panels = new WordPanel[this.numberOfWords + 1];
@@ -173,6 +178,7 @@ public class RecoveryWindow extends javax.swing.JDialog {
             addWordPanel(i);
         }
         addWordPanel(0);
+        addSearchPanels();
 
         setLocationRelativeTo(parent);
     }
@@ -190,6 +196,7 @@ public class RecoveryWindow extends javax.swing.JDialog {
         recoverButton = new javax.swing.JButton();
         jMenuBar1 = new javax.swing.JMenuBar();
         jMenu2 = new javax.swing.JMenu();
+        pastePasswordButton = new javax.swing.JMenuItem();
         clearFieldsButton = new javax.swing.JMenuItem();
         jMenu3 = new javax.swing.JMenu();
         aboutButton = new javax.swing.JMenuItem();
@@ -198,7 +205,7 @@ public class RecoveryWindow extends javax.swing.JDialog {
         setTitle("Recuperar Senha");
         setMinimumSize(new java.awt.Dimension(550, 300));
 
-        jLabel1.setText("Insira as palavras que você se lembra aqui e aperte \"Recuperar\", apenas um campo pode estar vazio.");
+        jLabel1.setText("Insira as palavras que você se lembra aqui e aperte \"Recuperar\", com o código de verificação mais de um campo pode estar vazio.");
 
         recoveryPanel.setLayout(new javax.swing.BoxLayout(recoveryPanel, javax.swing.BoxLayout.Y_AXIS));
         jScrollPane1.setViewportView(recoveryPanel);
@@ -213,6 +220,14 @@ public class RecoveryWindow extends javax.swing.JDialog {
 
         jMenu2.setText("Editar");
 
+        pastePasswordButton.setText("Colar Senha");
+        pastePasswordButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                pastePasswordButtonActionPerformed(evt);
+            }
+        });
+        jMenu2.add(pastePasswordButton);
+
         clearFieldsButton.setText("Limpar Campos");
         clearFieldsButton.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
@@ -272,21 +287,170 @@ public class RecoveryWindow extends javax.swing.JDialog {
     private void recoverButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_recoverButtonActionPerformed
         int xor = 0;
         int w = -1;
+        int empty = 0;
         for (int i = 0; i < this.panels.length; i++) {
             int sel = this.panels[i].getSelected();
             if (sel == -1) {
                 w = i;
+                empty++;
                 continue;
             }
             xor ^= sel;
         }
-        
-        if (w != -1) {
+
+        //nada faltando, nada a fazer
+        if (empty == 0) {
+            return;
+        }
+
+        //apenas uma palavra faltando, recupera pelo XOR; a palavra de recuperação
+        //sempre pode ser calculada assim, as da senha só se não houver código
+        if (empty == 1 && (w == 0 || this.verificationCodeField.getText().isBlank())) {
             this.panels[w].setSelected(xor);
             Toolkit.getDefaultToolkit().beep();
+            return;
         }
+
+        searchMissingWords();
     }//GEN-LAST:event_recoverButtonActionPerformed
 
+    //adiciona os painéis do código de verificação e do sufixo
+    private void addSearchPanels() {
+        JPanel codePanel = new JPanel();
+        codePanel.setLayout(new BoxLayout(codePanel, BoxLayout.X_AXIS));
+        codePanel.setBorder(BorderFactory
+                .createTitledBorder(BorderFactory
+                        .createEmptyBorder(10, 5, 0, 5), "Código de Verificação (para mais de uma palavra faltando):"));
+        this.verificationCodeField.setMaximumSize(new Dimension(Integer.MAX_VALUE, 22));
+        this.verificationCodeField.setFont(new Font("Monospaced", 0, 12));
+        codePanel.add(this.verificationCodeField);
+        this.recoveryPanel.add(codePanel);
+
+        PasswordSettings settings = this.generator.getSettings();
+        JPanel suffixPanel = new JPanel();
+        suffixPanel.setLayout(new BoxLayout(suffixPanel, BoxLayout.X_AXIS));
+        String title = "Sufixo:";
+        if (settings.isUsingRandomSuffix()) {
+            title = "Sufixo (vazio para testar todos os sufixos aleatórios):";
+        } else {
+            this.suffixField.setText(settings.getSuffix());
+        }
+        suffixPanel.setBorder(BorderFactory
+                .createTitledBorder(BorderFactory
+                        .createEmptyBorder(10, 5, 0, 5), title));
+        this.suffixField.setMaximumSize(new Dimension(Integer.MAX_VALUE, 22));
+        this.suffixField.setFont(new Font("Monospaced", 0, 12));
+        suffixPanel.add(this.suffixField);
+        this.recoveryPanel.add(suffixPanel);
+    }
+
+    //busca as palavras que faltam por força bruta usando o código de verificação
+    private void searchMissingWords() {
+        if (this.verificationCodeField.getText().isBlank()) {
+            Toolkit.getDefaultToolkit().beep();
+            JOptionPane.showMessageDialog(this,
+                    "Insira o código de verificação para recuperar mais de uma palavra.",
+                    "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        String suffix = this.suffixField.getText().trim();
+        String[] suffixes;
+        if (!suffix.isEmpty()) {
+            suffixes = new String[]{suffix};
+        } else if (this.generator.getSettings().isUsingRandomSuffix()) {
+            suffixes = PasswordRecovery.getRandomSuffixes();
+        } else {
+            suffixes = new String[]{""};
+        }
+
+        int[] known = new int[this.numberOfWords];
+        for (int i = 0; i < known.length; i++) {
+            known[i] = this.panels[i + 1].getSelected();
+        }
+
+        PasswordRecovery recovery;
+        try {
+            byte[] code = VerificationWindow.getVerificationCodeBytes(this.verificationCodeField.getText());
+            recovery = new PasswordRecovery(
+                    this.generator, known, this.panels[0].getSelected(), suffixes, code);
+        } catch (IllegalArgumentException ex) {
+            Toolkit.getDefaultToolkit().beep();
+            JOptionPane.showMessageDialog(this,
+                    "Não foi possível recuperar: " + ex.getLocalizedMessage(),
+                    "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        if (recovery.getTotal() > 100_000) {
+            int result = JOptionPane.showConfirmDialog(this,
+                    recovery.getTotal() + " senhas serão testadas, isso pode demorar. Continuar?",
+                    "Recuperar Senha", JOptionPane.YES_NO_OPTION);
+            if (result != JOptionPane.YES_OPTION) {
+                return;
+            }
+        }
+
+        long startTime = System.nanoTime();
+        ProgressDialog progressDialog = new ProgressDialog(this, "Recuperando Senha", recovery::cancel);
+        Timer timer = new Timer(500, (e) -> {
+            progressDialog.setProgress(recovery.getProgress(), recovery.getTotal(), startTime, "senhas");
+        });
+
+        SwingWorker<PasswordRecovery.Result, Void> worker = new SwingWorker<>() {
+            @Override
+            protected PasswordRecovery.Result doInBackground() throws Exception {
+                return recovery.run(0);
+            }
+
+            @Override
+            protected void done() {
+                timer.stop();
+                progressDialog.dispose();
+                RecoveryWindow.this.onWordSelected();
+                try {
+                    onSearchFinished(get(), recovery);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    Toolkit.getDefaultToolkit().beep();
+
+                    ex.getCause().printStackTrace(System.err);
+                    TextDialog.ofThrowable(RecoveryWindow.this, ex.getCause()).setVisible(true);
+                }
+            }
+        };
+
+        this.recoverButton.setEnabled(false);
+        progressDialog.setProgress(0, recovery.getTotal(), "Iniciando...");
+        progressDialog.setVisible(true);
+        timer.start();
+        worker.execute();
+    }
+
+    //chamado quando a busca termina
+    private void onSearchFinished(PasswordRecovery.Result result, PasswordRecovery recovery) {
+        Toolkit.getDefaultToolkit().beep();
+        if (result == null) {
+            if (recovery.getProgress() >= recovery.getTotal()) {
+                JOptionPane.showMessageDialog(this,
+                        "Nenhuma senha encontrada, verifique as palavras, o sufixo e o código de verificação.",
+                        "Recuperar Senha", JOptionPane.WARNING_MESSAGE);
+            }
+            return;
+        }
+
+        int[] indices = result.getIndices();
+        for (int i = 0; i < indices.length; i++) {
+            this.panels[i + 1].setSelected(indices[i]);
+        }
+        this.panels[0].setSelected(PasswordGenerator.calculateRecoveryWord(indices));
+
+        JOptionPane.showMessageDialog(this,
+                "Senha encontrada:\n" + result.getPassword(),
+                "Recuperar Senha", JOptionPane.INFORMATION_MESSAGE);
+    }
+
     //botão de sobre
     private void aboutButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_aboutButtonActionPerformed
         try {
@@ -307,6 +471,75 @@ public class RecoveryWindow extends javax.swing.JDialog {
         }
     }//GEN-LAST:event_clearFieldsButtonActionPerformed
 
+    //o botão de colar senha, preenche os campos com as palavras da senha na área de transferência
+    //(cada palavra é achada pelo índice reverso do dicionário), palavras que não estão no
+    //dicionário ficam vazias para serem recuperadas e o que sobrar depois das palavras vai para o sufixo
+    private void pastePasswordButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_pastePasswordButtonActionPerformed
+        String text;
+        try {
+            text = (String) Toolkit.getDefaultToolkit().getSystemClipboard().getData(DataFlavor.stringFlavor);
+        } catch (UnsupportedFlavorException | IOException | IllegalStateException ex) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+        String[] parts = this.generator.splitPassword(text);
+        if (parts.length == 0) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+
+        int notFound = 0;
+        StringBuilder suggestions = new StringBuilder();
+        for (int i = 0; i < this.numberOfWords; i++) {
+            int index = -1;
+            if (i < parts.length) {
+                String part = parts[i].strip();
+                index = this.dictionary.indexOf(part);
+                if (index == -1) {
+                    notFound++;
+                    appendSuggestions(suggestions, part);
+                }
+            }
+            this.panels[i + 1].setSelected(index);
+        }
+        if (parts.length > this.numberOfWords) {
+            char separator = this.generator.getSettings().getSeparatorCharacter();
+            this.suffixField.setText(String.join((separator == '\0' ? "" : String.valueOf(separator)),
+                    Arrays.copyOfRange(parts, this.numberOfWords, parts.length)));
+        } else {
+            this.suffixField.setText("");
+        }
+
+        if (notFound != 0) {
+            String message = notFound + " palavra(s) da senha não estão no dicionário e ficaram vazias.";
+            if (suggestions.length() != 0) {
+                message += "\n\nPalavras parecidas do dicionário:" + suggestions;
+            }
+            JOptionPane.showMessageDialog(this, message, "Colar Senha", JOptionPane.WARNING_MESSAGE);
+        }
+    }//GEN-LAST:event_pastePasswordButtonActionPerformed
+
+    //adiciona as palavras do dicionário mais parecidas com uma palavra que não foi encontrada
+    private void appendSuggestions(StringBuilder suggestions, String part) {
+        String search = SortedWordIndex.normalize(part);
+        int maxDistance = FuzzyWordIndex.getMaxDistanceFor(search);
+        if (maxDistance == 0) {
+            return;
+        }
+        int[] found = this.dictionary.getFuzzyWordIndex().find(search, maxDistance);
+        if (found.length == 0) {
+            return;
+        }
+        SortedWordIndex index = this.dictionary.getSortedWordIndex();
+        suggestions.append('\n').append(part).append(": ");
+        for (int i = 0; i < Math.min(found.length, 3); i++) {
+            if (i != 0) {
+                suggestions.append(", ");
+            }
+            suggestions.append(this.dictionary.getWord(index.getWordIndex(found[i])));
+        }
+    }
+
     //adiciona um novo painel de palavra
     private void addWordPanel(int index) {
         WordPanel panel = new WordPanel(index) {
@@ -329,8 +562,9 @@ public class RecoveryWindow extends javax.swing.JDialog {
             }
         }
 
-        //se apenas um painel está vazio, então o botão de recuperação é ativado
-        this.recoverButton.setEnabled(emptyFound == 1);
+        //se algum painel está vazio, então o botão de recuperação é ativado
+        //(mais de um painel vazio precisa do código de verificação)
+        this.recoverButton.setEnabled(emptyFound >= 1);
     }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
@@ -341,6 +575,7 @@ public class RecoveryWindow extends javax.swing.JDialog {
     private javax.swing.JMenu jMenu3;
     private javax.swing.JMenuBar jMenuBar1;
     private javax.swing.JScrollPane jScrollPane1;
+    private javax.swing.JMenuItem pastePasswordButton;
     private javax.swing.JButton recoverButton;
     private javax.swing.JPanel recoveryPanel;
     // End of variables declaration//GEN-END:variables
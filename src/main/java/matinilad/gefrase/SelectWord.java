@@ -26,10 +26,13 @@
  */
 package matinilad.gefrase;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Objects;
-import javax.swing.DefaultListModel;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BooleanSupplier;
+import javax.swing.AbstractListModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.event.ListSelectionEvent;
 
 /**
@@ -79,8 +82,69 @@ public class SelectWord extends javax.swing.JDialog {
         
     }
     
+    //modelo da lista de seleção, guarda só os índices das palavras e cria o objeto
+    //de uma palavra quando ela for desenhada
+    private static class WordListModel extends AbstractListModel<Word> {
+        
+        //o dicionário
+        private final Dictionary dictionary;
+        //os índices das palavras, null para todas as palavras em ordem alfabética
+        private final int[] indices;
+
+        public WordListModel(Dictionary dictionary, int[] indices) {
+            this.dictionary = dictionary;
+            this.indices = indices;
+        }
+
+        @Override
+        public int getSize() {
+            if (this.indices == null) {
+                return this.dictionary.getSortedWordIndex().size();
+            }
+            return this.indices.length;
+        }
+
+        @Override
+        public Word getElementAt(int index) {
+            if (this.indices == null) {
+                return new Word(this.dictionary, this.dictionary.getSortedWordIndex().getWordIndex(index));
+            }
+            return new Word(this.dictionary, this.indices[index]);
+        }
+        
+    }
+    
+    //o resultado de uma pesquisa
+    private static class SearchResult {
+        
+        //a pesquisa normalizada
+        private final String search;
+        //as posições das palavras que contém a pesquisa, null se ela não usou o índice de trigramas
+        private final int[] contains;
+        //os índices das palavras encontradas em ordem, null para todas as palavras
+        private final int[] words;
+
+        public SearchResult(String search, int[] contains, int[] words) {
+            this.search = search;
+            this.contains = contains;
+            this.words = words;
+        }
+        
+    }
+    
+    //quanto tempo (em ms) sem digitar antes de pesquisar
+    private static final int SEARCH_DELAY = 150;
+    
     //o dicionário da janela de seleção de palavra
     private final Dictionary dictionary;
+    //o timer que espera o usuário parar de digitar
+    private final Timer searchTimer;
+    //a pesquisa rodando em segundo plano, null se nenhuma estiver rodando
+    private SwingWorker<SearchResult, Void> searchWorker = null;
+    //o texto da pesquisa rodando em segundo plano
+    private String runningSearch = null;
+    //o resultado da última pesquisa mostrada
+    private SearchResult lastResult = null;
     
     /**
      * Cria uma nova janela de seleção de palavra
@@ -91,6 +155,8 @@ public class SelectWord extends javax.swing.JDialog {
         super(parent, true);
         this.dictionary = Objects.requireNonNull(dictionary);
         initComponents();
+        this.searchTimer = new Timer(SEARCH_DELAY, (e) -> updateList());
+        this.searchTimer.setRepeats(false);
         updateList();
         setLocationRelativeTo(parent);
     }
@@ -167,8 +233,9 @@ public class SelectWord extends javax.swing.JDialog {
     }
     
     //quando uma tecla no campo de pesquisa for solta a lista de seleção é atualizada
+    //depois que o usuário parar de digitar
     private void searchWordFieldKeyReleased(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_searchWordFieldKeyReleased
-        updateList();
+        this.searchTimer.restart();
     }//GEN-LAST:event_searchWordFieldKeyReleased
     
     //quando o botão de OK é pressionado a janela é fechada
@@ -177,6 +244,7 @@ public class SelectWord extends javax.swing.JDialog {
     private void okButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_okButtonActionPerformed
         Word selected = this.wordList.getSelectedValue();
         if (selected != null) {
+            this.searchTimer.stop();
             setVisible(false);
             dispose();
             onWordSelected(selected.getWordIndex());
@@ -190,17 +258,62 @@ public class SelectWord extends javax.swing.JDialog {
         }
     }
     
-    //atualiza a lista de seleção com o conteúdo do campo de pesquisa
+    //atualiza a lista de seleção com o conteúdo do campo de pesquisa, a pesquisa roda em segundo
+    //plano e uma pesquisa antiga ainda rodando é cancelada
     private void updateList() {
-        //primeiro damos prioridade para as palavras iguais a pesquisa
-        List<Word> equalsList = new ArrayList<>();
-        //depois para as palavras que começam com a pesquisa
-        List<Word> startsWithList = new ArrayList<>();
-        //depois para as palavras que contém a pesquisa
-        List<Word> containsList = new ArrayList<>();
+        //o texto do campo de pesquisa recebe um trim e é normalizado como no índice
+        String search = SortedWordIndex.normalize(this.searchWordField.getText().trim());
         
-        //o texto do campo de pesquisa recebe um trim e é convertido pra lower case
-        String search = this.searchWordField.getText().trim().toLowerCase();
+        //nada mudou (ex: uma seta foi pressionada)
+        if (this.searchWorker != null ? search.equals(this.runningSearch)
+                : (this.lastResult != null && search.equals(this.lastResult.search))) {
+            return;
+        }
+        if (this.searchWorker != null) {
+            this.searchWorker.cancel(false);
+        }
+        
+        SearchResult previous = this.lastResult;
+        SwingWorker<SearchResult, Void> worker = new SwingWorker<>() {
+            @Override
+            protected SearchResult doInBackground() throws Exception {
+                return search(search, previous, this::isCancelled);
+            }
+
+            @Override
+            protected void done() {
+                //uma pesquisa mais nova já foi iniciada
+                if (SelectWord.this.searchWorker != this) {
+                    return;
+                }
+                SelectWord.this.searchWorker = null;
+                SelectWord.this.runningSearch = null;
+                try {
+                    showResult(get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    ex.getCause().printStackTrace(System.err);
+                }
+            }
+        };
+        this.searchWorker = worker;
+        this.runningSearch = search;
+        worker.execute();
+    }
+    
+    //pesquisa as palavras (fora da thread do swing), se a pesquisa contém a pesquisa anterior
+    //as palavras que contém ela são procuradas só no resultado anterior
+    //retorna null se for cancelada
+    private SearchResult search(String search, SearchResult previous, BooleanSupplier cancelled) {
+        //o índice em ordem alfabética é criado aqui no primeiro uso para não ser criado
+        //pelo modelo ou pelo tamanho das células na thread do swing
+        SortedWordIndex index = this.dictionary.getSortedWordIndex();
+        
+        //sem pesquisa, todas as palavras em ordem alfabética (sem criar nenhum array)
+        if (search.isEmpty()) {
+            return new SearchResult(search, null, null);
+        }
         
         //se o texto começa com 0x, então temos um número em hexadecimal e apenas um resultado
         if (search.startsWith("0x")) {
@@ -209,35 +322,80 @@ public class SelectWord extends javax.swing.JDialog {
                 if (number < 0) {
                     number = -1;
                 }
-                equalsList.add(new Word(this.dictionary, number));
-            } catch (NumberFormatException ex) {}
+                return new SearchResult(search, null, new int[]{number});
+            } catch (NumberFormatException ex) {
+                return new SearchResult(search, null, new int[0]);
+            }
+        }
+        
+        //primeiro vêm as palavras iguais a pesquisa e depois as que começam com ela, as duas do
+        //índice em ordem alfabética (as iguais são as primeiras do intervalo do prefixo)
+        int[] prefixRange = index.findPrefix(search);
+        int[] words = new int[16 + prefixRange[1] - prefixRange[0]];
+        int size = 0;
+        for (int i = prefixRange[0]; i < prefixRange[1]; i++) {
+            words[size++] = index.getWordIndex(i);
+        }
+        if (cancelled.getAsBoolean()) {
+            return null;
+        }
+        
+        //depois as que só contém a pesquisa, do índice de trigramas (já em ordem),
+        //pulando as que estão no intervalo do prefixo
+        TrigramIndex trigrams = this.dictionary.getTrigramIndex();
+        int[] contains;
+        if (previous != null && previous.contains != null && search.contains(previous.search)) {
+            contains = trigrams.findContaining(search, previous.contains);
         } else {
-            //se não, iteramos por todas as palavras do dicionário
-            for (int i = 0; i < this.dictionary.getNumberOfWords(); i++) {
-                String word = this.dictionary.getWord(i).toLowerCase();
-                Word w = new Word(this.dictionary, i);
-                if (word.equals(search)) {
-                    equalsList.add(w);
-                } else if (word.startsWith(search)) {
-                    startsWithList.add(w);
-                } else if (word.contains(search)) {
-                    containsList.add(w);
+            contains = trigrams.findContaining(search);
+        }
+        words = Arrays.copyOf(words, size + contains.length + 16);
+        for (int position : contains) {
+            if (position < prefixRange[0] || position >= prefixRange[1]) {
+                words[size++] = index.getWordIndex(position);
+            }
+        }
+        if (cancelled.getAsBoolean()) {
+            return null;
+        }
+        
+        //e por último as parecidas com a pesquisa (com letras erradas), do índice de pesquisa
+        //aproximada (da mais próxima para a mais distante), pulando as que já apareceram
+        int maxDistance = FuzzyWordIndex.getMaxDistanceFor(search);
+        if (maxDistance > 0) {
+            for (int position : this.dictionary.getFuzzyWordIndex().find(search, maxDistance)) {
+                if ((position < prefixRange[0] || position >= prefixRange[1])
+                        && Arrays.binarySearch(contains, position) < 0) {
+                    if (size == words.length) {
+                        words = Arrays.copyOf(words, size * 2);
+                    }
+                    words[size++] = index.getWordIndex(position);
                 }
             }
         }
         
-        //todas as listas são ordenadas para melhor visualização
-        equalsList.sort((o1, o2) -> String.CASE_INSENSITIVE_ORDER.compare(o1.toString(), o2.toString()));
-        startsWithList.sort((o1, o2) -> String.CASE_INSENSITIVE_ORDER.compare(o1.toString(), o2.toString()));
-        containsList.sort((o1, o2) -> String.CASE_INSENSITIVE_ORDER.compare(o1.toString(), o2.toString()));
+        return new SearchResult(search, contains, Arrays.copyOf(words, size));
+    }
+    
+    //mostra o resultado de uma pesquisa na lista de seleção
+    private void showResult(SearchResult result) {
+        if (result == null) {
+            return;
+        }
+        this.lastResult = result;
+        
+        //o tamanho das células vem da maior palavra do dicionário (ou do único resultado, se ele
+        //não for uma palavra), então a lista não precisa medir cada palavra e palavras longas
+        //continuam com a barra de rolagem horizontal
+        int widest = this.dictionary.getSortedWordIndex().getLongestWordIndex();
+        if (result.words != null && result.words.length == 1
+                && (result.words[0] < 0 || result.words[0] >= this.dictionary.getNumberOfWords())) {
+            widest = result.words[0];
+        }
+        this.wordList.setPrototypeCellValue(new Word(this.dictionary, widest));
         
-        //cria um modelo para a lista de seleção receber as novas palavras
-        //e adiciona todas as listas em ordem como dito acima
-        DefaultListModel<Word> model = new DefaultListModel<>();
-        model.addAll(equalsList);
-        model.addAll(startsWithList);
-        model.addAll(containsList);
-        this.wordList.setModel(model);
+        //troca o modelo da lista de seleção, sem criar um objeto por palavra
+        this.wordList.setModel(new WordListModel(this.dictionary, result.words));
         this.wordList.clearSelection();
         
         //desativa o botão de OK (até uma palavra ser selecionada na lista)
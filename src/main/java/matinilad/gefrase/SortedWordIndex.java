@@ -0,0 +1,179 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Índice das palavras de um dicionário em ordem alfabética sem diferenciar maiúsculas, para achar
+ * as palavras iguais a uma pesquisa ou que começam com ela por busca binária em vez de percorrer
+ * o dicionário inteiro
+ * <p>
+ * Só guarda um int por palavra (os índices em ordem), as palavras são lidas do dicionário
+ * durante a busca binária.
+ * @author Cien
+ */
+public class SortedWordIndex {
+
+    /**
+     * Normaliza uma palavra ou pesquisa para a comparação (minúsculo)
+     * @param word a palavra
+     * @return a palavra normalizada
+     */
+    public static String normalize(String word) {
+        return word.toLowerCase(Locale.ROOT);
+    }
+
+    //o dicionário
+    private final Dictionary dictionary;
+    //os índices das palavras em ordem alfabética normalizada
+    private final int[] sorted;
+    //o índice da palavra com mais caracteres
+    private final int longestWordIndex;
+
+    /**
+     * Cria o índice ordenando as palavras do dicionário
+     * @param dictionary o dicionário
+     */
+    public SortedWordIndex(Dictionary dictionary) {
+        this.dictionary = dictionary;
+        int n = dictionary.getNumberOfWords();
+        //as palavras normalizadas só existem durante a ordenação
+        String[] words = new String[n];
+        Integer[] order = new Integer[n];
+        int longest = 0;
+        for (int i = 0; i < n; i++) {
+            words[i] = normalize(dictionary.getWord(i));
+            order[i] = i;
+            if (words[i].length() > words[longest].length()) {
+                longest = i;
+            }
+        }
+        this.longestWordIndex = longest;
+        Arrays.parallelSort(order, (o1, o2) -> {
+            int c = words[o1].compareTo(words[o2]);
+            return (c != 0 ? c : Integer.compare(o1, o2));
+        });
+        this.sorted = new int[n];
+        for (int i = 0; i < n; i++) {
+            this.sorted[i] = order[i];
+        }
+    }
+
+    /**
+     * Retorna o dicionário indexado
+     * @return o dicionário
+     */
+    public Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Retorna a quantidade de palavras do índice
+     * @return a quantidade de palavras
+     */
+    public int size() {
+        return this.sorted.length;
+    }
+
+    /**
+     * Retorna o índice no dicionário da palavra em uma posição da ordem alfabética
+     * @param position a posição
+     * @return o índice da palavra no dicionário
+     */
+    public int getWordIndex(int position) {
+        return this.sorted[position];
+    }
+
+    /**
+     * Retorna o índice no dicionário da palavra com mais caracteres (a primeira, se houver
+     * mais de uma)
+     * @return o índice da palavra
+     */
+    public int getLongestWordIndex() {
+        return longestWordIndex;
+    }
+
+    //a palavra normalizada de uma posição
+    private String wordAt(int position) {
+        return normalize(this.dictionary.getWord(this.sorted[position]));
+    }
+
+    //a primeira posição com uma palavra maior ou igual (ou maior, se strict) que a pesquisa
+    private int lowerBound(String query, boolean strict) {
+        int low = 0;
+        int high = this.sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int c = wordAt(middle).compareTo(query);
+            if (c < 0 || (strict && c == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    //a primeira posição depois das palavras que começam com o prefixo, a partir de from
+    private int prefixEnd(String prefix, int from) {
+        int low = from;
+        int high = this.sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (wordAt(middle).startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Retorna as posições [início, fim) das palavras iguais à pesquisa
+     * @param query a pesquisa, já normalizada
+     * @return um array com o início e o fim
+     */
+    public int[] findEquals(String query) {
+        int from = lowerBound(query, false);
+        return new int[]{from, lowerBound(query, true)};
+    }
+
+    /**
+     * Retorna as posições [início, fim) das palavras que começam com o prefixo (incluindo as
+     * iguais a ele, que vêm primeiro)
+     * @param prefix o prefixo, já normalizado
+     * @return um array com o início e o fim
+     */
+    public int[] findPrefix(String prefix) {
+        int from = lowerBound(prefix, false);
+        return new int[]{from, prefixEnd(prefix, from)};
+    }
+
+}
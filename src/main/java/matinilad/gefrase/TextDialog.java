@@ -93,7 +93,20 @@ public class TextDialog extends javax.swing.JDialog {
      * @param text o texto
      */
     public TextDialog(java.awt.Window parent, String title, String text) {
-        super(parent, ModalityType.APPLICATION_MODAL);
+        this(parent, title, text, ModalityType.APPLICATION_MODAL);
+    }
+
+    /**
+     * Cria uma nova janela de texto com uma modalidade específica, use
+     * {@link ModalityType#MODELESS} para janelas que recebem texto enquanto estão abertas
+     *
+     * @param parent a janela pai
+     * @param title o título da janela
+     * @param text o texto
+     * @param modality a modalidade da janela
+     */
+    public TextDialog(java.awt.Window parent, String title, String text, ModalityType modality) {
+        super(parent, modality);
         initComponents();
         setTitle(title);
         this.textArea.setText(text);
@@ -193,6 +206,15 @@ public class TextDialog extends javax.swing.JDialog {
         pack();
     }// </editor-fold>//GEN-END:initComponents
 
+    /**
+     * Adiciona texto no final da janela, deve ser chamado na thread do swing
+     *
+     * @param text o texto
+     */
+    public void appendText(String text) {
+        this.textArea.append(text);
+    }
+
     /**
      * Retorna as seções de texto para impressão
      * @param sectionCutlines se as linhas de corte estão ativadas
@@ -0,0 +1,323 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.util.Arrays;
+
+/**
+ * Índice de trigramas (sequências de 3 caracteres) das palavras de um dicionário, para achar as
+ * palavras que contém uma pesquisa sem percorrer o dicionário inteiro
+ * <p>
+ * Cada trigrama tem uma lista com as posições (na ordem do {@link SortedWordIndex}) das palavras
+ * que o contém, todas guardadas em um único array de int. Uma pesquisa intersecta as listas dos
+ * seus trigramas e só verifica as palavras que sobrarem, o resultado já sai em ordem alfabética.
+ * <p>
+ * Pesquisas com menos de 3 caracteres não têm trigramas e percorrem todas as palavras.
+ * @author Cien
+ */
+public class TrigramIndex {
+
+    //o tamanho de um trigrama
+    private static final int GRAM = 3;
+
+    //a chave de um trigrama
+    private static long key(String word, int offset) {
+        return (((long) word.charAt(offset)) << 32)
+                | (((long) word.charAt(offset + 1)) << 16)
+                | ((long) word.charAt(offset + 2));
+    }
+
+    //o hash de uma chave
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    //o índice em ordem alfabética
+    private final SortedWordIndex sortedIndex;
+
+    //tabela de chaves dos trigramas (0 é vazio, nenhum trigrama tem chave 0 já que palavras
+    //normalizadas não contém o caractere nulo)
+    private long[] keys;
+    //o id de cada chave da tabela
+    private int[] ids;
+    //a quantidade de trigramas
+    private int numberOfTrigrams = 0;
+
+    //onde a lista de cada trigrama começa em postings (a lista do id i vai de offsets[i] até offsets[i + 1])
+    private final int[] offsets;
+    //as listas de posições de todos os trigramas
+    private final int[] postings;
+
+    /**
+     * Cria o índice de trigramas de um índice em ordem alfabética
+     * @param sortedIndex o índice em ordem alfabética
+     */
+    public TrigramIndex(SortedWordIndex sortedIndex) {
+        this.sortedIndex = sortedIndex;
+        Dictionary dictionary = sortedIndex.getDictionary();
+        int n = sortedIndex.size();
+
+        this.keys = new long[1024];
+        this.ids = new int[1024];
+
+        //primeira passada: dá um id para cada trigrama e conta as palavras de cada um
+        int[] counts = new int[256];
+        int[] last = new int[256];
+        for (int i = 0; i < n; i++) {
+            String word = SortedWordIndex.normalize(dictionary.getWord(sortedIndex.getWordIndex(i)));
+            for (int j = 0; j + GRAM <= word.length(); j++) {
+                int id = getOrAddId(key(word, j));
+                if (id >= counts.length) {
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                    last = Arrays.copyOf(last, last.length * 2);
+                }
+                //um trigrama repetido na mesma palavra só conta uma vez
+                if (counts[id] != 0 && last[id] == i) {
+                    continue;
+                }
+                counts[id]++;
+                last[id] = i;
+            }
+        }
+
+        this.offsets = new int[this.numberOfTrigrams + 1];
+        for (int i = 0; i < this.numberOfTrigrams; i++) {
+            this.offsets[i + 1] = this.offsets[i] + counts[i];
+        }
+        this.postings = new int[this.offsets[this.numberOfTrigrams]];
+
+        //segunda passada: preenche as listas, as posições já são adicionadas em ordem
+        int[] fill = Arrays.copyOf(this.offsets, this.numberOfTrigrams);
+        for (int i = 0; i < n; i++) {
+            String word = SortedWordIndex.normalize(dictionary.getWord(sortedIndex.getWordIndex(i)));
+            for (int j = 0; j + GRAM <= word.length(); j++) {
+                int id = getId(key(word, j));
+                int f = fill[id];
+                if (f != this.offsets[id] && this.postings[f - 1] == i) {
+                    continue;
+                }
+                this.postings[f] = i;
+                fill[id] = f + 1;
+            }
+        }
+    }
+
+    //procura o id de uma chave, -1 se não existir
+    private int getId(long key) {
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            long k = this.keys[slot];
+            if (k == key) {
+                return this.ids[slot];
+            }
+            if (k == 0) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    //procura o id de uma chave ou adiciona um novo
+    private int getOrAddId(long key) {
+        int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            long k = this.keys[slot];
+            if (k == key) {
+                return this.ids[slot];
+            }
+            if (k == 0) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = this.numberOfTrigrams++;
+        this.keys[slot] = key;
+        this.ids[slot] = id;
+        //mantém a tabela no máximo metade cheia
+        if (this.numberOfTrigrams * 2 > this.keys.length) {
+            long[] oldKeys = this.keys;
+            int[] oldIds = this.ids;
+            this.keys = new long[oldKeys.length * 2];
+            this.ids = new int[oldIds.length * 2];
+            int newMask = this.keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int s = hash(oldKeys[i]) & newMask;
+                    while (this.keys[s] != 0) {
+                        s = (s + 1) & newMask;
+                    }
+                    this.keys[s] = oldKeys[i];
+                    this.ids[s] = oldIds[i];
+                }
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Retorna o índice em ordem alfabética usado por este índice
+     * @return o índice em ordem alfabética
+     */
+    public SortedWordIndex getSortedIndex() {
+        return sortedIndex;
+    }
+
+    /**
+     * Retorna a quantidade de trigramas diferentes
+     * @return a quantidade de trigramas
+     */
+    public int getNumberOfTrigrams() {
+        return numberOfTrigrams;
+    }
+
+    /**
+     * Retorna o tamanho total das listas de posições
+     * @return o tamanho das listas
+     */
+    public int getNumberOfPostings() {
+        return this.postings.length;
+    }
+
+    //primeira posição da lista [from, to) maior ou igual ao valor
+    private int search(int from, int to, int value) {
+        //busca exponencial a partir do início, já que os valores procurados só crescem
+        int bound = 1;
+        while (from + bound < to && this.postings[from + bound] < value) {
+            bound <<= 1;
+        }
+        int low = from + (bound >> 1);
+        int high = Math.min(from + bound + 1, to);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.postings[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Procura as palavras que contém a pesquisa entre as posições de uma pesquisa anterior, se
+     * a pesquisa contém a anterior as palavras que contém ela estão todas no resultado anterior
+     * @param query a pesquisa, já normalizada
+     * @param candidates as posições que podem conter a pesquisa, em ordem
+     * @return as posições (no {@link SortedWordIndex}) das palavras, em ordem
+     */
+    public int[] findContaining(String query, int[] candidates) {
+        Dictionary dictionary = this.sortedIndex.getDictionary();
+        int[] result = new int[candidates.length];
+        int size = 0;
+        for (int position : candidates) {
+            String word = SortedWordIndex.normalize(dictionary.getWord(this.sortedIndex.getWordIndex(position)));
+            if (word.contains(query)) {
+                result[size++] = position;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Procura as palavras que contém a pesquisa
+     * @param query a pesquisa, já normalizada
+     * @return as posições (no {@link SortedWordIndex}) das palavras, em ordem
+     */
+    public int[] findContaining(String query) {
+        Dictionary dictionary = this.sortedIndex.getDictionary();
+        int n = this.sortedIndex.size();
+
+        if (query.length() < GRAM) {
+            int[] result = new int[16];
+            int size = 0;
+            for (int i = 0; i < n; i++) {
+                String word = SortedWordIndex.normalize(dictionary.getWord(this.sortedIndex.getWordIndex(i)));
+                if (word.contains(query)) {
+                    if (size == result.length) {
+                        result = Arrays.copyOf(result, size * 2);
+                    }
+                    result[size++] = i;
+                }
+            }
+            return Arrays.copyOf(result, size);
+        }
+
+        //ids dos trigramas da pesquisa, se algum não existir nenhuma palavra contém a pesquisa
+        int count = query.length() - GRAM + 1;
+        int[] lists = new int[count];
+        for (int i = 0; i < count; i++) {
+            int id = getId(key(query, i));
+            if (id == -1) {
+                return new int[0];
+            }
+            lists[i] = id;
+        }
+        //as listas menores primeiro, a menor dá os candidatos
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = lists[i];
+        }
+        Arrays.sort(order, (o1, o2) -> Integer.compare(
+                this.offsets[o1 + 1] - this.offsets[o1],
+                this.offsets[o2 + 1] - this.offsets[o2]
+        ));
+
+        int smallest = order[0];
+        int[] candidates = Arrays.copyOfRange(this.postings, this.offsets[smallest], this.offsets[smallest + 1]);
+        int size = candidates.length;
+        for (int l = 1; l < count && size > 0; l++) {
+            int id = order[l];
+            if (id == smallest) {
+                continue;
+            }
+            int from = this.offsets[id];
+            int to = this.offsets[id + 1];
+            int newSize = 0;
+            for (int i = 0; i < size && from < to; i++) {
+                from = search(from, to, candidates[i]);
+                if (from < to && this.postings[from] == candidates[i]) {
+                    candidates[newSize++] = candidates[i];
+                }
+            }
+            size = newSize;
+        }
+
+        //os trigramas podem estar separados na palavra, os que sobraram são verificados
+        int newSize = 0;
+        for (int i = 0; i < size; i++) {
+            String word = SortedWordIndex.normalize(dictionary.getWord(this.sortedIndex.getWordIndex(candidates[i])));
+            if (word.contains(query)) {
+                candidates[newSize++] = candidates[i];
+            }
+        }
+        return Arrays.copyOf(candidates, newSize);
+    }
+
+}
@@ -0,0 +1,417 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Os dicionários do usuário, arquivos de palavras na pasta dictionaries dentro da pasta do programa
+ * <p>
+ * Arquivos de texto (.txt) são validados por completo (palavras duplicadas, linhas vazias e tamanho)
+ * só uma vez por conteúdo: o resultado é compilado para o formato binário na pasta .cache e
+ * registrado em um índice com o tamanho, a data de modificação e o hash do arquivo. Enquanto o
+ * tamanho e a data não mudarem o arquivo compilado é mapeado direto, sem ler o texto de novo; se
+ * mudarem o hash do arquivo é recalculado e a validação só é refeita se o conteúdo for outro.
+ * <p>
+ * Dicionários binários ({@link BinaryWordStorage#EXTENSION}) e comprimidos
+ * ({@link FrontCodedWordStorage#EXTENSION}) já foram validados quando compilados e são abertos
+ * direto.
+ * @author Cien
+ */
+public class UserDictionaries {
+
+    /**
+     * O nome da pasta dos dicionários do usuário dentro da pasta do programa
+     */
+    public static final String DIRECTORY_NAME = "dictionaries";
+    /**
+     * O nome da pasta do cache dentro da pasta dos dicionários do usuário
+     */
+    public static final String CACHE_DIRECTORY_NAME = ".cache";
+    /**
+     * O prefixo dos ids dos dicionários do usuário, para não colidir com os dicionários padrões
+     */
+    public static final String ID_PREFIX = "user:";
+    /**
+     * A extensão dos dicionários de texto
+     */
+    public static final String TEXT_EXTENSION = ".txt";
+
+    //o nome do arquivo de índice do cache
+    private static final String INDEX_FILE = "index" + KeyValueFile.EXTENSION;
+
+    //o índice do cache, lido no primeiro uso
+    //para cada arquivo: nome.size, nome.modified, nome.hash e nome.words
+    private static Properties index = null;
+
+    /**
+     * Retorna a pasta dos dicionários do usuário
+     * @return a pasta dos dicionários do usuário, pode não existir
+     */
+    public static Path getDirectory() {
+        return Path.of(Configuration.PROGRAM_DIRECTORY_NAME, DIRECTORY_NAME);
+    }
+
+    /**
+     * Retorna a pasta do cache dos dicionários do usuário
+     * @return a pasta do cache, pode não existir
+     */
+    public static Path getCacheDirectory() {
+        return getDirectory().resolve(CACHE_DIRECTORY_NAME);
+    }
+
+    //retorna a extensão do arquivo em minúsculo ou null se não for um dicionário
+    private static String getDictionaryExtension(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        for (String e : new String[]{TEXT_EXTENSION, BinaryWordStorage.EXTENSION, FrontCodedWordStorage.EXTENSION}) {
+            if (lower.endsWith(e) && lower.length() > e.length()) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Procura os dicionários na pasta do usuário, sem ler as palavras. A quantidade de palavras
+     * dos arquivos de texto é preenchida a partir do cache se o arquivo não mudou.
+     * @param previous o registro anterior, os metadados de arquivos que não mudaram são
+     * reaproveitados (junto com as palavras se já foram carregadas)
+     * @return os metadados dos dicionários encontrados, em ordem de nome de arquivo, vazio se a
+     * pasta não existir
+     * @throws IOException se a pasta não puder ser lida
+     */
+    public static synchronized DictionaryInfo[] discover(Map<String, DictionaryInfo> previous) throws IOException {
+        Path directory = getDirectory();
+        if (!Files.isDirectory(directory)) {
+            return new DictionaryInfo[0];
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path p : stream) {
+                if (Files.isRegularFile(p) && getDictionaryExtension(p.getFileName().toString()) != null) {
+                    files.add(p);
+                }
+            }
+        }
+        files.sort((o1, o2) -> o1.getFileName().toString().compareTo(o2.getFileName().toString()));
+
+        List<DictionaryInfo> infos = new ArrayList<>();
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            String extension = getDictionaryExtension(fileName);
+            String name = fileName.substring(0, fileName.length() - extension.length());
+            String id = ID_PREFIX + fileName;
+
+            long size;
+            long lastModified;
+            try {
+                size = Files.size(file);
+                lastModified = Files.getLastModifiedTime(file).toMillis();
+            } catch (NoSuchFileException ex) {
+                //apagado enquanto a pasta era lida
+                continue;
+            }
+            DictionaryInfo old = previous.get(id);
+            if (old != null && old.isSameFile(size, lastModified)) {
+                infos.add(old);
+                continue;
+            }
+
+            int words = -1;
+            if (extension.equals(TEXT_EXTENSION)) {
+                Properties idx = getIndex();
+                if (isUnchanged(idx, fileName, file)) {
+                    words = Integer.parseInt(idx.getProperty(fileName + ".words", "-1"));
+                }
+            }
+            infos.add(new DictionaryInfo(id, name, file, size, lastModified, words));
+        }
+        cleanCache(files);
+        return infos.toArray(DictionaryInfo[]::new);
+    }
+
+    /**
+     * Abre um dicionário do usuário, arquivos de texto passam pelo cache de validação
+     * @param file o arquivo do dicionário
+     * @return as palavras do dicionário
+     * @throws IOException se o arquivo não puder ser lido ou for inválido
+     */
+    public static WordStorage open(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        if (!TEXT_EXTENSION.equals(getDictionaryExtension(fileName))) {
+            return Dictionary.openWordStorage(file);
+        }
+        synchronized (UserDictionaries.class) {
+            return openText(file, fileName);
+        }
+    }
+
+    //abre um dicionário de texto usando o cache se possível
+    private static WordStorage openText(Path file, String fileName) throws IOException {
+        Properties idx = getIndex();
+        Path cacheDirectory = getCacheDirectory();
+
+        //o arquivo não mudou desde a última validação
+        if (isUnchanged(idx, fileName, file)) {
+            WordStorage cached = openCached(cacheDirectory, idx.getProperty(fileName + ".hash"));
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        //o arquivo mudou ou o compilado sumiu, se o conteúdo for o mesmo não valida de novo
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        String hash = hashFile(file);
+        WordStorage storage = openCached(cacheDirectory, hash);
+        if (storage == null) {
+            BlobWordStorage validated;
+            try (InputStream in = Files.newInputStream(file)) {
+                validated = Dictionary.readTextWords(in, file.toString());
+            }
+            storage = validated;
+            try {
+                storage = writeCached(cacheDirectory, hash, validated);
+            } catch (IOException ex) {
+                //sem cache (pasta sem permissão de escrita por exemplo), usa o validado da memória
+                ex.printStackTrace();
+                return validated;
+            }
+        }
+
+        String oldHash = idx.getProperty(fileName + ".hash");
+        idx.setProperty(fileName + ".size", Long.toString(size));
+        idx.setProperty(fileName + ".modified", Long.toString(modified));
+        idx.setProperty(fileName + ".hash", hash);
+        idx.setProperty(fileName + ".words", Integer.toString(storage.getNumberOfWords()));
+        if (oldHash != null && !oldHash.equals(hash)) {
+            deleteIfUnused(idx, cacheDirectory, oldHash);
+        }
+        try {
+            saveIndex(idx, cacheDirectory);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        return storage;
+    }
+
+    //se o tamanho e a data de modificação do arquivo são os mesmos do índice
+    private static boolean isUnchanged(Properties idx, String fileName, Path file) throws IOException {
+        String size = idx.getProperty(fileName + ".size");
+        String modified = idx.getProperty(fileName + ".modified");
+        if (size == null || modified == null || idx.getProperty(fileName + ".hash") == null) {
+            return false;
+        }
+        return size.equals(Long.toString(Files.size(file)))
+                && modified.equals(Long.toString(Files.getLastModifiedTime(file).toMillis()));
+    }
+
+    //abre o dicionário compilado de um hash, null se não existir ou estiver corrompido
+    private static WordStorage openCached(Path cacheDirectory, String hash) {
+        if (hash == null) {
+            return null;
+        }
+        Path cached = cacheDirectory.resolve(hash + BinaryWordStorage.EXTENSION);
+        if (!Files.isRegularFile(cached)) {
+            return null;
+        }
+        try {
+            return BinaryWordStorage.map(cached);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    //compila as palavras validadas para o cache, escrevendo em um arquivo temporário
+    //e renomeando no final para nunca deixar um arquivo pela metade
+    private static WordStorage writeCached(Path cacheDirectory, String hash, WordStorage storage) throws IOException {
+        Files.createDirectories(cacheDirectory);
+        Path cached = cacheDirectory.resolve(hash + BinaryWordStorage.EXTENSION);
+        Path temporary = Files.createTempFile(cacheDirectory, hash, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                BinaryWordStorage.write(storage, channel);
+            }
+            Files.move(temporary, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return BinaryWordStorage.map(cached);
+    }
+
+    //remove do índice os arquivos de texto que não existem mais e apaga os compilados e
+    //temporários que nenhum arquivo do índice usa, feito a cada descoberta para que um
+    //compilado que não pôde ser apagado antes (ainda mapeado no windows por exemplo) seja
+    //apagado em uma próxima vez
+    private static void cleanCache(List<Path> files) {
+        Path cacheDirectory = getCacheDirectory();
+        if (!Files.isDirectory(cacheDirectory)) {
+            return;
+        }
+        Properties idx = getIndex();
+
+        Set<String> textFiles = new HashSet<>();
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            if (TEXT_EXTENSION.equals(getDictionaryExtension(fileName))) {
+                textFiles.add(fileName);
+            }
+        }
+        boolean changed = false;
+        Set<String> used = new HashSet<>();
+        for (String key : idx.stringPropertyNames()) {
+            if (!key.endsWith(".hash")) {
+                continue;
+            }
+            String fileName = key.substring(0, key.length() - ".hash".length());
+            if (textFiles.contains(fileName)) {
+                used.add(idx.getProperty(key));
+                continue;
+            }
+            for (String property : new String[]{".size", ".modified", ".hash", ".words"}) {
+                idx.remove(fileName + property);
+            }
+            changed = true;
+        }
+        if (changed) {
+            try {
+                saveIndex(idx, cacheDirectory);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory)) {
+            for (Path p : stream) {
+                String fileName = p.getFileName().toString();
+                boolean unused;
+                if (fileName.endsWith(BinaryWordStorage.EXTENSION)) {
+                    unused = !used.contains(fileName.substring(0, fileName.length() - BinaryWordStorage.EXTENSION.length()));
+                } else {
+                    unused = fileName.endsWith(".tmp");
+                }
+                if (unused) {
+                    try {
+                        Files.deleteIfExists(p);
+                    } catch (IOException ex) {
+                        //tentado de novo na próxima descoberta
+                        ex.printStackTrace();
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    //apaga o compilado de um hash se nenhum arquivo do índice usar ele, se não for possível
+    //ele é apagado por cleanCache em uma próxima descoberta
+    private static void deleteIfUnused(Properties idx, Path cacheDirectory, String hash) {
+        for (String key : idx.stringPropertyNames()) {
+            if (key.endsWith(".hash") && hash.equals(idx.getProperty(key))) {
+                return;
+            }
+        }
+        try {
+            Files.deleteIfExists(cacheDirectory.resolve(hash + BinaryWordStorage.EXTENSION));
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    //calcula o SHA-256 dos bytes do arquivo em hexadecimal
+    private static String hashFile(Path file) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+        byte[] buffer = new byte[65536];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sha.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    //lê o índice do cache no primeiro uso, um índice ilegível é ignorado
+    private static Properties getIndex() {
+        if (index != null) {
+            return index;
+        }
+        index = new Properties();
+        Path file = getCacheDirectory().resolve(INDEX_FILE);
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                KeyValueFile.read(in, index, file.toString());
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                index.clear();
+            }
+        }
+        return index;
+    }
+
+    //salva o índice do cache
+    private static void saveIndex(Properties idx, Path cacheDirectory) throws IOException {
+        Files.createDirectories(cacheDirectory);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(cacheDirectory.resolve(INDEX_FILE)))) {
+            KeyValueFile.write(idx, out);
+        }
+    }
+
+    private UserDictionaries() {
+
+    }
+}
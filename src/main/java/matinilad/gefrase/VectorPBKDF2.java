@@ -0,0 +1,300 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * PBKDF2-HMAC-SHA256 vetorizado com o vector api do java (jdk.incubator.vector),
+ * cada lane do vetor calcula uma senha diferente.<br>
+ * <br>
+ * Os dados ficam em arrays de int transpostos, a palavra i da lane l fica na
+ * posição (i * lanes + l), para que cada palavra seja carregada como um vetor.<br>
+ * <br>
+ * Só deve ser carregada por {@link BatchPBKDF2}, que verifica se o módulo está presente.
+ *
+ * @author Cien
+ */
+final class VectorPBKDF2 extends BatchPBKDF2 {
+
+    //o formato de vetor preferido da cpu
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    //estado inicial do SHA-256
+    private static final int[] INITIAL_STATE = {
+        0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a,
+        0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+    };
+
+    //constantes de rodada do SHA-256
+    private static final int[] K = {
+        0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+        0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+        0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+        0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+        0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+        0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+        0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+        0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+    };
+
+    //quantidade de lanes
+    private final int lanes = SPECIES.length();
+    //o schedule de mensagem, 64 palavras por lane
+    private final int[] w = new int[64 * this.lanes];
+    //estados após os blocos ipad e opad, estados de trabalho, U e T
+    private final int[] innerState = new int[8 * this.lanes];
+    private final int[] outerState = new int[8 * this.lanes];
+    private final int[] state = new int[8 * this.lanes];
+    private final int[] u = new int[8 * this.lanes];
+    private final int[] t = new int[8 * this.lanes];
+    //o SHA-256 escalar, usado para chaves maiores que um bloco
+    private final MessageDigest sha;
+    //bloco de bytes da chave de uma lane e a senha em UTF-8
+    private final byte[] block = new byte[PBKDF2.BLOCK_SIZE];
+    private byte[] passwordBytes = new byte[PBKDF2.BLOCK_SIZE];
+    //os blocos da mensagem (salt || INT(1) com padding) de todas as lanes, uma lane depois da outra
+    private byte[] message = new byte[this.lanes * 2 * PBKDF2.BLOCK_SIZE];
+
+    /**
+     * Cria uma nova instância, chamado por reflexão pelo {@link BatchPBKDF2}
+     */
+    VectorPBKDF2() {
+        try {
+            this.sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public int getLanes() {
+        return this.lanes;
+    }
+
+    //escreve um bloco de 64 bytes como as 16 primeiras palavras de uma lane
+    private void setLaneBlock(int lane, byte[] data, int offset) {
+        for (int i = 0; i < 16; i++) {
+            int p = offset + (i * 4);
+            this.w[(i * this.lanes) + lane] = ((data[p] & 0xFF) << 24)
+                    | ((data[p + 1] & 0xFF) << 16)
+                    | ((data[p + 2] & 0xFF) << 8)
+                    | (data[p + 3] & 0xFF);
+        }
+    }
+
+    //define o estado inicial do SHA-256 em todas as lanes
+    private void setInitialState(int[] output) {
+        for (int i = 0; i < 8; i++) {
+            Arrays.fill(output, i * this.lanes, (i + 1) * this.lanes, INITIAL_STATE[i]);
+        }
+    }
+
+    //escreve a chave do HMAC de uma senha (com padding e xor de um byte) em uma lane do bloco
+    private void setLaneKey(int lane, char[] password, int pad) {
+        int maxLength = password.length * 3;
+        if (this.passwordBytes.length < maxLength) {
+            Arrays.fill(this.passwordBytes, (byte) 0);
+            this.passwordBytes = new byte[maxLength];
+        }
+        int length = PBKDF2.encodePassword(password, this.passwordBytes);
+        Arrays.fill(this.block, (byte) 0);
+        if (length > PBKDF2.BLOCK_SIZE) {
+            //chaves maiores que um bloco são substituídas pelo hash delas
+            this.sha.reset();
+            this.sha.update(this.passwordBytes, 0, length);
+            System.arraycopy(this.sha.digest(), 0, this.block, 0, PBKDF2.DIGEST_SIZE);
+        } else {
+            System.arraycopy(this.passwordBytes, 0, this.block, 0, length);
+        }
+        for (int i = 0; i < PBKDF2.BLOCK_SIZE; i++) {
+            this.block[i] ^= pad;
+        }
+        setLaneBlock(lane, this.block, 0);
+        Arrays.fill(this.passwordBytes, (byte) 0);
+        Arrays.fill(this.block, (byte) 0);
+    }
+
+    //comprime as 16 primeiras palavras do schedule em um estado, em todas as lanes ao mesmo tempo
+    private void compress(int[] st) {
+        final int l = this.lanes;
+        final int[] w = this.w;
+        for (int i = 16; i < 64; i++) {
+            IntVector w15 = IntVector.fromArray(SPECIES, w, (i - 15) * l);
+            IntVector w2 = IntVector.fromArray(SPECIES, w, (i - 2) * l);
+            IntVector s0 = w15.lanewise(VectorOperators.ROR, 7)
+                    .lanewise(VectorOperators.XOR, w15.lanewise(VectorOperators.ROR, 18))
+                    .lanewise(VectorOperators.XOR, w15.lanewise(VectorOperators.LSHR, 3));
+            IntVector s1 = w2.lanewise(VectorOperators.ROR, 17)
+                    .lanewise(VectorOperators.XOR, w2.lanewise(VectorOperators.ROR, 19))
+                    .lanewise(VectorOperators.XOR, w2.lanewise(VectorOperators.LSHR, 10));
+            IntVector.fromArray(SPECIES, w, (i - 16) * l)
+                    .add(s0)
+                    .add(IntVector.fromArray(SPECIES, w, (i - 7) * l))
+                    .add(s1)
+                    .intoArray(w, i * l);
+        }
+
+        IntVector a = IntVector.fromArray(SPECIES, st, 0);
+        IntVector b = IntVector.fromArray(SPECIES, st, l);
+        IntVector c = IntVector.fromArray(SPECIES, st, 2 * l);
+        IntVector d = IntVector.fromArray(SPECIES, st, 3 * l);
+        IntVector e = IntVector.fromArray(SPECIES, st, 4 * l);
+        IntVector f = IntVector.fromArray(SPECIES, st, 5 * l);
+        IntVector g = IntVector.fromArray(SPECIES, st, 6 * l);
+        IntVector h = IntVector.fromArray(SPECIES, st, 7 * l);
+
+        for (int i = 0; i < 64; i++) {
+            IntVector s1 = e.lanewise(VectorOperators.ROR, 6)
+                    .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 11))
+                    .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 25));
+            IntVector ch = g.lanewise(VectorOperators.XOR, e.and(f.lanewise(VectorOperators.XOR, g)));
+            IntVector t1 = h.add(s1).add(ch).add(K[i]).add(IntVector.fromArray(SPECIES, w, i * l));
+            IntVector s0 = a.lanewise(VectorOperators.ROR, 2)
+                    .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 13))
+                    .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 22));
+            IntVector maj = a.and(b).or(c.and(a.or(b)));
+            h = g;
+            g = f;
+            f = e;
+            e = d.add(t1);
+            d = c;
+            c = b;
+            b = a;
+            a = t1.add(s0).add(maj);
+        }
+
+        a.add(IntVector.fromArray(SPECIES, st, 0)).intoArray(st, 0);
+        b.add(IntVector.fromArray(SPECIES, st, l)).intoArray(st, l);
+        c.add(IntVector.fromArray(SPECIES, st, 2 * l)).intoArray(st, 2 * l);
+        d.add(IntVector.fromArray(SPECIES, st, 3 * l)).intoArray(st, 3 * l);
+        e.add(IntVector.fromArray(SPECIES, st, 4 * l)).intoArray(st, 4 * l);
+        f.add(IntVector.fromArray(SPECIES, st, 5 * l)).intoArray(st, 5 * l);
+        g.add(IntVector.fromArray(SPECIES, st, 6 * l)).intoArray(st, 6 * l);
+        h.add(IntVector.fromArray(SPECIES, st, 7 * l)).intoArray(st, 7 * l);
+    }
+
+    @Override
+    protected void deriveLanes(char[][] passwords, byte[][] salts,
+            int offset, int count, int iterations, byte[][] outputs) {
+        final int l = this.lanes;
+        int saltLength = salts[offset].length;
+        //lanes sem senha repetem a primeira senha, o resultado delas é descartado
+        try {
+            //estados após os blocos (chave ^ ipad) e (chave ^ opad)
+            for (int lane = 0; lane < l; lane++) {
+                int index = offset + (lane < count ? lane : 0);
+                setLaneKey(lane, passwords[index], 0x36);
+            }
+            setInitialState(this.innerState);
+            compress(this.innerState);
+            for (int lane = 0; lane < l; lane++) {
+                int index = offset + (lane < count ? lane : 0);
+                setLaneKey(lane, passwords[index], 0x5c);
+            }
+            setInitialState(this.outerState);
+            compress(this.outerState);
+
+            //U1 = HMAC(senha, salt || INT(1)), a mensagem interna vem depois de um bloco de 64 bytes
+            int messageLength = saltLength + 4;
+            int blocks = (messageLength + 1 + 8 + PBKDF2.BLOCK_SIZE - 1) / PBKDF2.BLOCK_SIZE;
+            int size = blocks * PBKDF2.BLOCK_SIZE;
+            if (this.message.length < l * size) {
+                this.message = new byte[l * size];
+            }
+            //a mensagem de cada lane é montada uma vez, com o tamanho em bits no fim do último bloco
+            long bits = (PBKDF2.BLOCK_SIZE + messageLength) * 8L;
+            for (int lane = 0; lane < l; lane++) {
+                int index = offset + (lane < count ? lane : 0);
+                int start = lane * size;
+                Arrays.fill(this.message, start, start + size, (byte) 0);
+                System.arraycopy(salts[index], 0, this.message, start, saltLength);
+                this.message[start + saltLength + 3] = 1;
+                this.message[start + messageLength] = (byte) 0x80;
+                for (int i = 0; i < 8; i++) {
+                    this.message[start + size - 1 - i] = (byte) (bits >>> (i * 8));
+                }
+            }
+            System.arraycopy(this.innerState, 0, this.state, 0, this.state.length);
+            for (int b = 0; b < blocks; b++) {
+                for (int lane = 0; lane < l; lane++) {
+                    setLaneBlock(lane, this.message, (lane * size) + (b * PBKDF2.BLOCK_SIZE));
+                }
+                compress(this.state);
+            }
+
+            //padding de uma mensagem de 32 bytes após um bloco de 64 (768 bits)
+            //as palavras 8 a 15 não são alteradas pela compressão
+            Arrays.fill(this.w, 8 * l, 9 * l, 0x80000000);
+            Arrays.fill(this.w, 9 * l, 15 * l, 0);
+            Arrays.fill(this.w, 15 * l, 16 * l, (PBKDF2.BLOCK_SIZE + PBKDF2.DIGEST_SIZE) * 8);
+
+            System.arraycopy(this.state, 0, this.w, 0, 8 * l);
+            System.arraycopy(this.outerState, 0, this.u, 0, this.u.length);
+            compress(this.u);
+            System.arraycopy(this.u, 0, this.t, 0, this.t.length);
+
+            //Uj = HMAC(senha, Uj-1), T = U1 ^ U2 ^ ...
+            for (int j = 1; j < iterations; j++) {
+                System.arraycopy(this.u, 0, this.w, 0, 8 * l);
+                System.arraycopy(this.innerState, 0, this.state, 0, this.state.length);
+                compress(this.state);
+
+                System.arraycopy(this.state, 0, this.w, 0, 8 * l);
+                System.arraycopy(this.outerState, 0, this.u, 0, this.u.length);
+                compress(this.u);
+
+                for (int i = 0; i < this.t.length; i += l) {
+                    IntVector.fromArray(SPECIES, this.t, i)
+                            .lanewise(VectorOperators.XOR, IntVector.fromArray(SPECIES, this.u, i))
+                            .intoArray(this.t, i);
+                }
+            }
+
+            for (int lane = 0; lane < count; lane++) {
+                byte[] out = outputs[offset + lane];
+                for (int i = 0; i < out.length; i++) {
+                    int word = this.t[((i / 4) * l) + lane];
+                    out[i] = (byte) (word >>> (24 - ((i % 4) * 8)));
+                }
+            }
+        } finally {
+            Arrays.fill(this.w, 0);
+            Arrays.fill(this.innerState, 0);
+            Arrays.fill(this.outerState, 0);
+            Arrays.fill(this.state, 0);
+            Arrays.fill(this.u, 0);
+            Arrays.fill(this.t, 0);
+        }
+    }
+
+}
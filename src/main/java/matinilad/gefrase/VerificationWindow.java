@@ -29,14 +29,15 @@ package matinilad.gefrase;
 import java.awt.Toolkit;
 import java.io.IOException;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HexFormat;
-import javax.crypto.SecretKey;
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import javax.swing.JOptionPane;
 
 /**
@@ -58,6 +59,8 @@ public class VerificationWindow extends javax.swing.JDialog {
     public static final int HASH_SIZE = 5;
     //o tamanho total do código de verificação
     public static final int VERIFICATION_CODE_SIZE = RANDOM_SALT_SIZE + HASH_SIZE;
+    //as iterações do PBKDF2
+    public static final int ITERATIONS = 10_000;
     
     /**
      * Retorna um salt aleatório para ser usado na geração do código de verificação
@@ -88,26 +91,106 @@ public class VerificationWindow extends javax.swing.JDialog {
 
         byte[] verificationBytes = new byte[randomSalt.length + HASH_SIZE];
         System.arraycopy(randomSalt, 0, verificationBytes, 0, randomSalt.length);
+        
+        //PBKDF2-HMAC-SHA256, idêntico ao PBKDF2WithHmacSHA256 do java
+        PBKDF2 pbkdf2 = PBKDF2.get();
         try {
-            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-            PBEKeySpec pbe = new PBEKeySpec(password, salt, 10_000, 256);
-            try {
-                SecretKey secret = factory.generateSecret(pbe);
-
-                System.arraycopy(
-                        secret.getEncoded(), 0,
-                        verificationBytes, randomSalt.length,
-                        verificationBytes.length - randomSalt.length);
-            } finally {
-                pbe.clearPassword();
-            }
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException ex) {
-            throw new RuntimeException(ex);
+            pbkdf2.setPassword(password);
+            pbkdf2.derive(salt, 0, salt.length,
+                    ITERATIONS,
+                    verificationBytes, randomSalt.length, HASH_SIZE);
+        } finally {
+            pbkdf2.clear();
         }
 
         return verificationBytes;
     }
 
+    /**
+     * Gera os bytes de vários códigos de verificação na thread atual, as senhas são
+     * calculadas em grupos pelo {@link BatchPBKDF2} (várias senhas por instrução quando
+     * a implementação vetorizada está disponível)
+     * 
+     * @param randomSalts os salts, um para cada senha (não null)
+     * @param passwords as senhas (não null)
+     * @param offset a primeira senha
+     * @param count quantas senhas
+     * @return os bytes dos códigos de verificação, na mesma ordem das senhas
+     */
+    public static byte[][] getVerificationCodes(
+            byte[][] randomSalts, char[][] passwords,
+            int offset, int count) {
+        byte[][] salts = new byte[count][];
+        char[][] batchPasswords = new char[count][];
+        byte[][] hashes = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            byte[] randomSalt = randomSalts[offset + i];
+            if (randomSalt.length != RANDOM_SALT_SIZE) {
+                throw new IllegalArgumentException("random salt length must be " + RANDOM_SALT_SIZE);
+            }
+            byte[] salt = new byte[PROGRAM_SALT.length + randomSalt.length];
+            System.arraycopy(PROGRAM_SALT, 0, salt, 0, PROGRAM_SALT.length);
+            System.arraycopy(randomSalt, 0, salt, PROGRAM_SALT.length, randomSalt.length);
+            salts[i] = salt;
+            batchPasswords[i] = passwords[offset + i];
+            hashes[i] = new byte[HASH_SIZE];
+        }
+        
+        BatchPBKDF2.get().derive(batchPasswords, salts, ITERATIONS, hashes);
+        
+        byte[][] codes = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            byte[] verificationBytes = new byte[VERIFICATION_CODE_SIZE];
+            System.arraycopy(randomSalts[offset + i], 0, verificationBytes, 0, RANDOM_SALT_SIZE);
+            System.arraycopy(hashes[i], 0, verificationBytes, RANDOM_SALT_SIZE, HASH_SIZE);
+            codes[i] = verificationBytes;
+        }
+        return codes;
+    }
+
+    /**
+     * Gera os bytes de vários códigos de verificação em paralelo, as senhas são divididas
+     * em grupos do tamanho de {@link BatchPBKDF2#getLanes()}, cada grupo é calculado em uma
+     * tarefa separada do executor e os resultados são retornados na mesma ordem
+     * 
+     * @param randomSalts os salts, um para cada senha (não null)
+     * @param passwords as senhas (não null)
+     * @param executor o executor que vai calcular os códigos (não null)
+     * @return os bytes dos códigos de verificação, na mesma ordem das senhas
+     * @throws InterruptedException se a thread for interrompida enquanto espera os resultados
+     */
+    public static byte[][] getVerificationCodes(
+            byte[][] randomSalts, char[][] passwords,
+            ExecutorService executor) throws InterruptedException {
+        if (randomSalts.length != passwords.length) {
+            throw new IllegalArgumentException("salts and passwords must have the same length");
+        }
+        int groupSize = BatchPBKDF2.get().getLanes();
+        List<Callable<byte[][]>> tasks = new ArrayList<>();
+        for (int i = 0; i < passwords.length; i += groupSize) {
+            int offset = i;
+            int count = Math.min(groupSize, passwords.length - i);
+            tasks.add(() -> getVerificationCodes(randomSalts, passwords, offset, count));
+        }
+        
+        byte[][] codes = new byte[passwords.length][];
+        List<Future<byte[][]>> futures = executor.invokeAll(tasks);
+        try {
+            int index = 0;
+            for (Future<byte[][]> future : futures) {
+                for (byte[] code : future.get()) {
+                    codes[index++] = code;
+                }
+            }
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException r) {
+                throw r;
+            }
+            throw new RuntimeException(ex.getCause());
+        }
+        return codes;
+    }
+
     /**
      * Converte os bytes de um código de verificação para sua representação
      * em hexadecimal.
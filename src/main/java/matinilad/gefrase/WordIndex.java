@@ -0,0 +1,154 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Índice reverso de um dicionário, da palavra para o índice dela em tempo constante
+ * <p>
+ * É uma tabela hash de endereçamento aberto em um único int[] com no máximo 2/3
+ * ocupados, cada entrada guarda o índice da palavra + 1 nos 25 bits de baixo
+ * ({@link Dictionary#MAX_DICTIONARY_SIZE} é 2^24) e 7 bits do hash nos bits de cima,
+ * então a palavra só é lida do armazenamento para confirmar quando o hash bate.
+ * São 6 a 12 bytes por palavra, as palavras em si não são copiadas.
+ * @author Cien
+ */
+public class WordIndex {
+
+    //quantos bits de baixo guardam o índice + 1
+    private static final int INDEX_BITS = 25;
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+
+    /**
+     * O hash (FNV-1a com uma mistura no final) dos bytes de uma palavra
+     * @param data os bytes
+     * @param offset o início da palavra
+     * @param length o tamanho da palavra em bytes
+     * @return o hash
+     */
+    static int hash(byte[] data, int offset, int length) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ data[offset + i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    //as palavras
+    private final WordStorage storage;
+    //a tabela, 0 é vazio
+    private final int[] table;
+
+    /**
+     * Constrói o índice lendo todas as palavras do armazenamento uma vez
+     * @param storage o armazenamento, as palavras não podem ser duplicadas
+     */
+    public WordIndex(WordStorage storage) {
+        this.storage = storage;
+        int count = storage.getNumberOfWords();
+        int size = Integer.highestOneBit(Math.max(4, count + (count >> 1)) - 1) << 1;
+        this.table = new int[size];
+        int mask = size - 1;
+
+        ByteBuffer buffer = ByteBuffer.allocate(storage.getMaxWordByteLength());
+        for (int i = 0; i < count; i++) {
+            buffer.clear();
+            storage.writeWord(i, false, buffer);
+            int h = hash(buffer.array(), 0, buffer.position());
+            int slot = h & mask;
+            while (this.table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.table[slot] = ((h >>> INDEX_BITS) << INDEX_BITS) | (i + 1);
+        }
+    }
+
+    /**
+     * Retorna o armazenamento indexado
+     * @return o armazenamento
+     */
+    public WordStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Retorna o tamanho da tabela em entradas
+     * @return o tamanho da tabela
+     */
+    public int getTableSize() {
+        return this.table.length;
+    }
+
+    /**
+     * Procura uma palavra em UTF-8, sem mudar a capitalização
+     * @param data os bytes
+     * @param offset o início da palavra
+     * @param length o tamanho da palavra em bytes
+     * @return o índice da palavra ou -1 se ela não estiver no dicionário
+     */
+    public int indexOf(byte[] data, int offset, int length) {
+        if (length <= 0 || length > this.storage.getMaxWordByteLength()) {
+            return -1;
+        }
+        int h = hash(data, offset, length);
+        int fingerprint = (h >>> INDEX_BITS) << INDEX_BITS;
+        int mask = this.table.length - 1;
+        int slot = h & mask;
+        ByteBuffer buffer = null;
+        int entry;
+        while ((entry = this.table[slot]) != 0) {
+            if ((entry & ~INDEX_MASK) == fingerprint) {
+                int index = (entry & INDEX_MASK) - 1;
+                if (buffer == null) {
+                    buffer = ByteBuffer.allocate(this.storage.getMaxWordByteLength());
+                } else {
+                    buffer.clear();
+                }
+                this.storage.writeWord(index, false, buffer);
+                if (Arrays.equals(buffer.array(), 0, buffer.position(), data, offset, offset + length)) {
+                    return index;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Procura uma palavra, sem mudar a capitalização
+     * @param word a palavra
+     * @return o índice da palavra ou -1 se ela não estiver no dicionário
+     */
+    public int indexOf(String word) {
+        byte[] data = word.getBytes(StandardCharsets.UTF_8);
+        return indexOf(data, 0, data.length);
+    }
+
+}
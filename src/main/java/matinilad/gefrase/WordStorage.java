@@ -0,0 +1,70 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.nio.ByteBuffer;
+
+/**
+ * O armazenamento das palavras de um dicionário, em memória ou em um arquivo binário mapeado
+ *
+ * @author Cien
+ */
+public interface WordStorage {
+
+    /**
+     * Retorna a quantidade de palavras
+     *
+     * @return a quantidade de palavras
+     */
+    public int getNumberOfWords();
+
+    /**
+     * Retorna a palavra de um índice
+     *
+     * @param index o índice, maior ou igual a zero, menor que a quantidade de palavras
+     * @return a palavra, nunca null
+     */
+    public String getWord(int index);
+
+    /**
+     * Escreve a palavra de um índice em UTF-8 em um buffer, sem alocar nada
+     *
+     * @param index o índice, maior ou igual a zero, menor que a quantidade de palavras
+     * @param capitalized se a palavra deve ser escrita com a primeira letra em maiúsculo
+     * @param out o buffer de saída
+     */
+    public void writeWord(int index, boolean capitalized, ByteBuffer out);
+
+    /**
+     * Retorna o tamanho em bytes (UTF-8) da maior palavra, considerando também
+     * as palavras com a primeira letra em maiúsculo
+     *
+     * @return o tamanho em bytes da maior palavra
+     */
+    public int getMaxWordByteLength();
+
+}
@@ -0,0 +1,75 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <https://unlicense.org>
+ */
+package matinilad.gefrase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Casos de regressão do {@link CorpusDictionaryBuilder}, sem framework de testes: o surefire
+ * executa os métodos test* de classes *Test quando não há junit no classpath
+ *
+ * @author Cien
+ */
+public class CorpusDictionaryBuilderTest {
+
+    //lê um texto e constrói um dicionário de 2 palavras
+    private static String[] build(String text, boolean stripAccents) throws IOException {
+        CorpusDictionaryBuilder builder = new CorpusDictionaryBuilder(1, 3, 8, stripAccents, 1, 1, 1 << 16);
+        builder.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), null);
+        WordStorage storage = builder.build();
+        String[] words = new String[storage.getNumberOfWords()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = storage.getWord(i);
+        }
+        Arrays.sort(words);
+        return words;
+    }
+
+    //verifica as palavras do dicionário construído
+    private static void check(String[] expected, String[] words) {
+        if (!Arrays.equals(expected, words)) {
+            throw new AssertionError("expected " + Arrays.toString(expected) + " but got " + Arrays.toString(words));
+        }
+    }
+
+    //hangul vira jamo no NFD, a palavra fica maior que o buffer do token
+    public void testKoreanTokenLongerAfterNormalization() throws IOException {
+        check(new String[]{"casa", "mesa"},
+                build("casa 대한민국국회의사당 casa mesa mesa", true));
+    }
+
+    //U+0958 é uma exclusão de composição e continua decomposto no NFC (um caractere vira dois)
+    public void testCompositionExclusionTokenWithAccents() throws IOException {
+        String token = "क़".repeat(9);
+        check(new String[]{"casa", "mesa"},
+                build("casa " + token + " casa mesa mesa", false));
+    }
+
+}